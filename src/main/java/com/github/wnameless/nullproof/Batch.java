@@ -0,0 +1,219 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+/**
+ * 
+ * {@link Batch} creates nullproof instances of a Class from rows of
+ * constructor arguments. The constructor is resolved once and reused as long
+ * as the rows keep the same argument classes, so a uniform batch only resolves
+ * it for its first row.
+ * 
+ * @param <E>
+ *          type of target Class
+ */
+final class Batch<E> {
+
+  private static final int CHUNKS_PER_PROCESSOR = 4;
+
+  private final Class<E> klass;
+  private Class<?>[] argTypes;
+  private Instantiator<E> instantiator;
+
+  Batch(Class<E> klass) {
+    this.klass = klass;
+  }
+
+  /**
+   * Creates a nullproof instance with given row of constructor arguments.
+   * 
+   * @param row
+   *          arguments of constructor
+   * @return a nullproof instance
+   */
+  E create(Object[] row) {
+    if (!isSameShape(row)) {
+      instantiator = NullProof.resolve(klass, row);
+      argTypes = new Class<?>[row.length];
+      for (int i = 0; i < row.length; i++) {
+        argTypes[i] = row[i] == null ? null : row[i].getClass();
+      }
+    }
+    return instantiator.newInstance(row);
+  }
+
+  private boolean isSameShape(Object[] row) {
+    if (argTypes == null || argTypes.length != row.length)
+      return false;
+
+    for (int i = 0; i < row.length; i++) {
+      if (argTypes[i] != (row[i] == null ? null : row[i].getClass()))
+        return false;
+    }
+    return true;
+  }
+
+  /**
+   * Creates nullproof instances of all rows in order.
+   * 
+   * @param <E>
+   *          type of target Class
+   * @param klass
+   *          Class of target object
+   * @param rows
+   *          rows of constructor arguments
+   * @return a List of nullproof instances
+   */
+  static <E> List<E> createAll(Class<E> klass, List<Object[]> rows) {
+    Batch<E> batch = new Batch<E>(klass);
+    List<E> instances = new ArrayList<E>(rows.size());
+    for (Object[] row : rows) {
+      instances.add(batch.create(row));
+    }
+    return instances;
+  }
+
+  /**
+   * Creates nullproof instances of all rows lazily.
+   * 
+   * @param <E>
+   *          type of target Class
+   * @param klass
+   *          Class of target object
+   * @param rows
+   *          rows of constructor arguments
+   * @return an Iterator of nullproof instances
+   */
+  static <E> Iterator<E> createEach(Class<E> klass,
+      final Iterator<Object[]> rows) {
+    final Batch<E> batch = new Batch<E>(klass);
+    return new Iterator<E>() {
+
+      @Override
+      public boolean hasNext() {
+        return rows.hasNext();
+      }
+
+      @Override
+      public E next() {
+        return batch.create(rows.next());
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+
+    };
+  }
+
+  /**
+   * Creates nullproof instances of all rows by given Executor. The rows are
+   * split into chunks and each chunk is created by its own task. The instances
+   * are returned in the order of the rows.
+   * 
+   * @param <E>
+   *          type of target Class
+   * @param klass
+   *          Class of target object
+   * @param rows
+   *          rows of constructor arguments
+   * @param executor
+   *          an Executor
+   * @return a List of nullproof instances
+   */
+  static <E> List<E> createAll(final Class<E> klass,
+      final List<Object[]> rows, Executor executor) {
+    final Object[] instances = new Object[rows.size()];
+    int chunks =
+        Math.min(instances.length, Runtime.getRuntime().availableProcessors()
+            * CHUNKS_PER_PROCESSOR);
+    List<Runnable> jobs = new ArrayList<Runnable>(chunks);
+    for (int c = 0; c < chunks; c++) {
+      final int from = (int) ((long) instances.length * c / chunks);
+      final int to = (int) ((long) instances.length * (c + 1) / chunks);
+      jobs.add(new Runnable() {
+
+        @Override
+        public void run() {
+          Batch<E> batch = new Batch<E>(klass);
+          for (int i = from; i < to; i++) {
+            instances[i] = batch.create(rows.get(i));
+          }
+        }
+
+      });
+    }
+    runAll(jobs, executor);
+
+    @SuppressWarnings("unchecked")
+    List<E> list = new ArrayList<E>((List<E>) Arrays.asList(instances));
+    return list;
+  }
+
+  /**
+   * Runs given jobs by given Executor and waits for all of them. The first
+   * failure of a job is rethrown unwrapped, and the jobs which have not
+   * started yet are cancelled.
+   * 
+   * @param jobs
+   *          any Runnables
+   * @param executor
+   *          an Executor
+   */
+  static void runAll(List<? extends Runnable> jobs, Executor executor) {
+    List<FutureTask<Void>> tasks = new ArrayList<FutureTask<Void>>(jobs.size());
+    for (Runnable job : jobs) {
+      FutureTask<Void> task = new FutureTask<Void>(job, null);
+      tasks.add(task);
+      executor.execute(task);
+    }
+
+    try {
+      for (FutureTask<Void> task : tasks) {
+        task.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException)
+        throw (RuntimeException) cause;
+      if (cause instanceof Error)
+        throw (Error) cause;
+      throw new IllegalStateException(cause);
+    } finally {
+      for (FutureTask<Void> task : tasks) {
+        task.cancel(false);
+      }
+    }
+  }
+
+}
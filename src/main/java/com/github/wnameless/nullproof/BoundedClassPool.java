@@ -0,0 +1,134 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.LoaderClassPath;
+import javassist.NotFoundException;
+
+/**
+ * 
+ * {@link BoundedClassPool} is a Javassist ClassPool scoped to a single
+ * ClassLoader which keeps at most {@link #CAPACITY} CtClasses. The least
+ * recently used CtClass is detached once the capacity is exceeded, and the
+ * pool itself is released when its ClassLoader is garbage collected.
+ * 
+ */
+final class BoundedClassPool {
+
+  /**
+   * The maximum number of CtClasses kept by each pool.
+   */
+  static final int CAPACITY = 64;
+
+  private static final Map<ClassLoader, BoundedClassPool> pools =
+      new WeakHashMap<ClassLoader, BoundedClassPool>();
+  private static final BoundedClassPool systemPool = new BoundedClassPool(
+      new ClassPool(true));
+
+  private final ClassPool pool;
+  private final Map<String, CtClass> ctClasses =
+      new LinkedHashMap<String, CtClass>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CtClass> eldest) {
+          if (size() <= CAPACITY)
+            return false;
+
+          eldest.getValue().detach();
+          return true;
+        }
+
+      };
+
+  private BoundedClassPool(ClassPool pool) {
+    this.pool = pool;
+  }
+
+  /**
+   * Returns the {@link BoundedClassPool} of given ClassLoader.
+   * 
+   * @param loader
+   *          any ClassLoader, null stands for the bootstrap ClassLoader
+   * @return a {@link BoundedClassPool}
+   */
+  static BoundedClassPool of(ClassLoader loader) {
+    if (loader == null)
+      return systemPool;
+
+    synchronized (pools) {
+      BoundedClassPool bcp = pools.get(loader);
+      if (bcp == null) {
+        ClassPool pool = new ClassPool(false);
+        pool.appendClassPath(new LoaderClassPath(loader));
+        bcp = new BoundedClassPool(pool);
+        pools.put(loader, bcp);
+      }
+      return bcp;
+    }
+  }
+
+  /**
+   * Returns the number of live {@link BoundedClassPool}s.
+   * 
+   * @return the number of live {@link BoundedClassPool}s
+   */
+  static int poolCount() {
+    synchronized (pools) {
+      return pools.size();
+    }
+  }
+
+  /**
+   * Returns the CtClass of given class name.
+   * 
+   * @param classname
+   *          a fully-qualified class name
+   * @return a CtClass
+   * @throws NotFoundException
+   *           if the class file is not found
+   */
+  synchronized CtClass get(String classname) throws NotFoundException {
+    CtClass cc = ctClasses.get(classname);
+    if (cc == null) {
+      cc = pool.get(classname);
+      ctClasses.put(classname, cc);
+    }
+    return cc;
+  }
+
+  /**
+   * Returns the number of CtClasses kept by this pool.
+   * 
+   * @return the number of CtClasses kept by this pool
+   */
+  synchronized int size() {
+    return ctClasses.size();
+  }
+
+}
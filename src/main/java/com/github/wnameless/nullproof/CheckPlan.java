@@ -0,0 +1,843 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.github.wnameless.nullproof.annotation.AcceptNull;
+import com.github.wnameless.nullproof.annotation.Argument;
+import com.github.wnameless.nullproof.annotation.RejectNull;
+
+/**
+ * 
+ * {@link CheckPlan} is the precompiled null check of a Method or Constructor.
+ * All the annotation lookups are done once while the plan is built, so a check
+ * is only a loop over the indices of the parameters which reject null (or a
+ * fixed test of each argument for Members with up to 3 parameters) and
+ * allocates nothing unless it fails. Parameters with deep checks are also
+ * scanned by {@link ElementScanner} for null elements, except the Iterable and
+ * Iterator parameters, which are replaced by {@link ElementViews} that check
+ * each element when it is consumed. The parameter annotations are compiled into
+ * the same indices, so they cost nothing per call. Whether the return value of
+ * a Method is checked is decided by the plan as well, so the Methods without
+ * return checks pay nothing for them. The plan of a Constructor may also check
+ * the fields of a newly constructed instance, and the fields of each Class are
+ * only looked up once. The annotations inherited from the superclasses, the
+ * interfaces and the package of a Class are resolved once per Class, so the
+ * hierarchy is never walked on the call path.
+ * 
+ */
+final class CheckPlan {
+
+  private static final int[] noIndices = new int[0];
+  private static final int[] noSlots = new int[] { -1, -1, -1 };
+  private static final String[] noMessages = new String[0];
+  private static final Argument[] emptyArgAnnotAry = new Argument[0];
+  private static final Field[] noFields = new Field[0];
+  private static final Annotation[] noAnnotations = new Annotation[0];
+
+  private static final ClassLoader ownLoader = CheckPlan.class
+      .getClassLoader();
+
+  // Plans are only kept by the Classes which can't outlive NullProof
+  private static final ClassValue<ConcurrentMap<Member, CheckPlan>> plans =
+      new ClassValue<ConcurrentMap<Member, CheckPlan>>() {
+
+        @Override
+        protected ConcurrentMap<Member, CheckPlan> computeValue(Class<?> type) {
+          return isDescendant(type.getClassLoader())
+              ? new ConcurrentHashMap<Member, CheckPlan>() : null;
+        }
+
+      };
+
+  // Plans of the Classes from the ancestor loaders of NullProof
+  private static final ConcurrentMap<Member, CheckPlan> ancestorPlans =
+      new ConcurrentHashMap<Member, CheckPlan>();
+
+  // Plans of the Classes from any other loader, which are dropped all at once
+  // whenever the map grows beyond SIBLING_PLANS
+  static final int SIBLING_PLANS = 1024;
+  private static final ConcurrentMap<Member, CheckPlan> siblingPlans =
+      new ConcurrentHashMap<Member, CheckPlan>();
+
+  private static final CheckPlan noChecks = new CheckPlan(null,
+      new Class<?>[0]);
+
+  private static final ClassValue<Field[]> checkedFields =
+      new ClassValue<Field[]>() {
+
+        @Override
+        protected Field[] computeValue(Class<?> type) {
+          List<Field> fields = new ArrayList<Field>();
+          for (Class<?> c = type; c != null && c != Object.class; c =
+              c.getSuperclass()) {
+            for (Field f : c.getDeclaredFields()) {
+              if (Modifier.isStatic(f.getModifiers()) || f.isSynthetic()
+                  || f.getType().isPrimitive()
+                  || f.isAnnotationPresent(AcceptNull.class))
+                continue;
+
+              f.setAccessible(true);
+              fields.add(f);
+            }
+          }
+          return fields.toArray(new Field[fields.size()]);
+        }
+
+      };
+
+  private static final ClassValue<RejectNull> classRejectNulls =
+      new TypeAnnotation<RejectNull>(RejectNull.class);
+
+  private static final ClassValue<AcceptNull> classAcceptNulls =
+      new TypeAnnotation<AcceptNull>(AcceptNull.class);
+
+  private final Member member;
+  private final Class<?>[] paramTypes;
+  private final int[] indices;
+  private final String[] messages;
+  private final int[] deepChecks;
+  private final int[] viewChecks;
+  private final boolean deep0;
+  private final boolean deep1;
+  private final boolean deep2;
+  private final int slot0;
+  private final int slot1;
+  private final int slot2;
+  private final int sampling;
+  private final boolean returns;
+  private final Field[] fields;
+  private final ThreadLocal<int[]> countdown = new ThreadLocal<int[]>() {
+
+    @Override
+    protected int[] initialValue() {
+      return new int[1];
+    }
+
+  };
+  private volatile StackTraceElement location;
+  private volatile String suffix;
+
+  private CheckPlan(Member member, Class<?>[] paramTypes,
+      Annotation[][] paramAnnotations, Argument[] arguments, int sampling,
+      boolean deep, Class<?> returnType, Field[] fields) {
+    this.member = member;
+    this.paramTypes = paramTypes;
+    this.sampling = sampling;
+    this.fields = fields;
+    returns = returnType != null;
+
+    int[] idx = new int[paramTypes.length];
+    String[] msgs = new String[paramTypes.length];
+    String[] elementMsgs = new String[paramTypes.length];
+    boolean[] deeps = new boolean[paramTypes.length];
+    boolean[] views = new boolean[paramTypes.length];
+    int count = 0;
+    // Annotations of implicit parameters (e.g. outer instances) may be absent
+    int offset = paramTypes.length - paramAnnotations.length;
+    for (int i = 0; i < paramTypes.length; i++) {
+      Class<?> type = paramTypes[i];
+      Annotation[] annotations =
+          i < offset ? noAnnotations : paramAnnotations[i - offset];
+      if (type.isPrimitive()
+          || findAnnotation(annotations, AcceptNull.class) != null)
+        continue;
+
+      RejectNull paramRN = findAnnotation(annotations, RejectNull.class);
+      boolean paramDeep = deep || (paramRN != null && paramRN.deep());
+      Argument argument = findArgument(arguments, type);
+      if (argument == null || (argument.ignore() && paramRN != null)) {
+        idx[count] = i;
+        deeps[count] = paramDeep && ElementScanner.isScannable(type);
+        views[count] = paramDeep && ElementViews.isViewable(type);
+        elementMsgs[count] = "Parameter<" + type.getSimpleName()
+            + "> contains null";
+        msgs[count++] = "Parameter<" + type.getSimpleName()
+            + "> is not nullable";
+      } else if (!argument.ignore()) {
+        idx[count] = i;
+        deeps[count] =
+            (paramDeep || argument.deep()) && ElementScanner.isScannable(type);
+        views[count] =
+            (paramDeep || argument.deep()) && ElementViews.isViewable(type);
+        elementMsgs[count] = argument.message().isEmpty() ? "Parameter<"
+            + type.getSimpleName() + "> contains null" : argument.message();
+        msgs[count++] = argument.message();
+      }
+    }
+
+    indices = new int[count];
+    System.arraycopy(idx, 0, indices, 0, count);
+    messages = new String[count * 2 + 1 + fields.length];
+    System.arraycopy(msgs, 0, messages, 0, count);
+    System.arraycopy(elementMsgs, 0, messages, count, count);
+    if (returns)
+      messages[count * 2] = "Return<" + returnType.getSimpleName()
+          + "> is not nullable";
+    for (int i = 0; i < fields.length; i++) {
+      messages[count * 2 + 1 + i] = "Field<" + fields[i].getName()
+          + "> is not nullable";
+    }
+    deepChecks = positionsOf(deeps, count);
+    viewChecks = positionsOf(views, count);
+
+    int[] slots = noSlots.clone();
+    for (int i = 0; i < count && indices[i] < slots.length; i++) {
+      slots[indices[i]] = i;
+    }
+    slot0 = slots[0];
+    slot1 = slots[1];
+    slot2 = slots[2];
+    deep0 = slot0 >= 0 && deeps[slot0];
+    deep1 = slot1 >= 0 && deeps[slot1];
+    deep2 = slot2 >= 0 && deeps[slot2];
+  }
+
+  private CheckPlan(Member member, Class<?>[] paramTypes) {
+    this.member = member;
+    this.paramTypes = paramTypes;
+    indices = noIndices;
+    messages = noMessages;
+    deepChecks = noIndices;
+    viewChecks = noIndices;
+    deep0 = deep1 = deep2 = false;
+    slot0 = slot1 = slot2 = -1;
+    sampling = 0;
+    returns = false;
+    fields = noFields;
+  }
+
+  /**
+   * Returns the cached {@link CheckPlan} of given Constructor.
+   * 
+   * @param ct
+   *          any Constructor
+   * @return a {@link CheckPlan}
+   */
+  static CheckPlan of(Constructor<?> ct) {
+    ConcurrentMap<Member, CheckPlan> cache = cacheOf(ct.getDeclaringClass());
+    CheckPlan plan = cache.get(ct);
+    if (plan == null) {
+      plan = build(ct);
+      CheckPlan existing = cache.putIfAbsent(ct, plan);
+      if (existing != null)
+        plan = existing;
+    }
+    return plan;
+  }
+
+  /**
+   * Returns the cached {@link CheckPlan} of given Method. The Methods of
+   * Object share a single plan which checks nothing.
+   * 
+   * @param m
+   *          any Method
+   * @return a {@link CheckPlan}
+   */
+  static CheckPlan of(Method m) {
+    if (m.getDeclaringClass() == Object.class)
+      return noChecks;
+
+    ConcurrentMap<Member, CheckPlan> cache = cacheOf(m.getDeclaringClass());
+    CheckPlan plan = cache.get(m);
+    if (plan == null) {
+      plan = build(m);
+      CheckPlan existing = cache.putIfAbsent(m, plan);
+      if (existing != null)
+        plan = existing;
+    }
+    return plan;
+  }
+
+  /**
+   * Returns the plan cache of given Class. The plans of a Class from the
+   * loader of NullProof or its descendants are kept by the Class itself, so
+   * they are released when the Class unloads. The plans of a Class from an
+   * ancestor loader are kept by NullProof, because such a Class would keep
+   * NullProof loaded forever. The plans of a Class from any other loader are
+   * kept by NullProof as well, but at most {@value #SIBLING_PLANS} of them,
+   * so such a loader is only held until its plans are dropped.
+   * 
+   * @param klass
+   *          any Class
+   * @return a plan cache
+   */
+  private static ConcurrentMap<Member, CheckPlan> cacheOf(Class<?> klass) {
+    ConcurrentMap<Member, CheckPlan> cache = plans.get(klass);
+    if (cache != null)
+      return cache;
+    if (isAncestor(klass.getClassLoader()))
+      return ancestorPlans;
+
+    if (siblingPlans.size() >= SIBLING_PLANS)
+      siblingPlans.clear();
+    return siblingPlans;
+  }
+
+  private static boolean isDescendant(ClassLoader loader) {
+    for (ClassLoader l = loader; l != null; l = l.getParent()) {
+      if (l == ownLoader)
+        return true;
+    }
+    return ownLoader == null;
+  }
+
+  private static boolean isAncestor(ClassLoader loader) {
+    for (ClassLoader l = ownLoader; l != null; l = l.getParent()) {
+      if (l == loader)
+        return true;
+    }
+    return loader == null;
+  }
+
+  private static CheckPlan build(Constructor<?> ct) {
+    Class<?>[] paramTypes = ct.getParameterTypes();
+
+    Class<?> klass = ct.getDeclaringClass();
+    RejectNull classRN = classRejectNulls.get(klass);
+    RejectNull methodRN = ct.getAnnotation(RejectNull.class);
+    if (methodRN != null)
+      return new CheckPlan(ct, paramTypes, ct.getParameterAnnotations(),
+          methodRN.value(), samplingOf(methodRN, classRN), methodRN.deep(),
+          null, fieldsOf(klass, classRN));
+
+    AcceptNull classAN = classAcceptNulls.get(klass);
+    if (classAN == null
+        || notFoundIn(classAN.value(),
+            ct.getName().substring(ct.getName().lastIndexOf('.') + 1)))
+      return new CheckPlan(ct, paramTypes, ct.getParameterAnnotations(),
+          classRN == null ? emptyArgAnnotAry : classRN.value(), samplingOf(
+              null, classRN), classRN != null && classRN.deep(), null,
+          fieldsOf(klass, classRN));
+
+    return new CheckPlan(ct, paramTypes);
+  }
+
+  private static CheckPlan build(Method m) {
+    Class<?>[] paramTypes = m.getParameterTypes();
+
+    // Object#equals is always ignored
+    if (m.getName().equals("equals") && paramTypes.length == 1) {
+      if (Object.class.equals(paramTypes[0]))
+        return new CheckPlan(m, paramTypes);
+    }
+
+    Method annotated = annotatedMethodOf(m);
+    AcceptNull methodAN = annotated.getAnnotation(AcceptNull.class);
+    if (methodAN != null)
+      return new CheckPlan(m, paramTypes);
+
+    Class<?> klass = m.getDeclaringClass();
+    RejectNull classRN = classRejectNulls.get(klass);
+    RejectNull methodRN = annotated.getAnnotation(RejectNull.class);
+    if (methodRN != null)
+      return new CheckPlan(m, paramTypes, parameterAnnotationsOf(m),
+          methodRN.value(), samplingOf(methodRN, classRN), methodRN.deep(),
+          returnTypeOf(m, methodRN, classRN), noFields);
+
+    AcceptNull classAN = classAcceptNulls.get(klass);
+    if (classAN == null || notFoundIn(classAN.value(), m.getName()))
+      return new CheckPlan(m, paramTypes, parameterAnnotationsOf(m),
+          classRN == null ? emptyArgAnnotAry : classRN.value(), samplingOf(
+              null, classRN), classRN != null && classRN.deep(),
+          returnTypeOf(m, null, classRN), noFields);
+
+    return new CheckPlan(m, paramTypes);
+  }
+
+  /**
+   * 
+   * {@link TypeAnnotation} resolves an annotation of a Class, which is
+   * inherited from its superclasses, its interfaces and then its package.
+   * 
+   * @param <A>
+   *          type of the annotation
+   */
+  private static final class TypeAnnotation<A extends Annotation> extends
+      ClassValue<A> {
+
+    private final Class<A> annotationType;
+
+    TypeAnnotation(Class<A> annotationType) {
+      this.annotationType = annotationType;
+    }
+
+    @Override
+    protected A computeValue(Class<?> type) {
+      A a = hierarchyAnnotation(type);
+      if (a == null && type.getPackage() != null)
+        a = type.getPackage().getAnnotation(annotationType);
+      return a;
+    }
+
+    private A hierarchyAnnotation(Class<?> type) {
+      A a = type.getAnnotation(annotationType);
+      for (Class<?> supertype : supertypesOf(type)) {
+        if (a != null)
+          break;
+        a = hierarchyAnnotation(supertype);
+      }
+      return a;
+    }
+
+  }
+
+  // Returns the nearest overridden Method annotated by RejectNull or
+  // AcceptNull, or the Method itself if none is annotated
+  private static Method annotatedMethodOf(Method m) {
+    if (isAnnotated(m) || Modifier.isStatic(m.getModifiers())
+        || Modifier.isPrivate(m.getModifiers()))
+      return m;
+
+    Method annotated = overriddenMethodOf(m.getDeclaringClass(), m);
+    return annotated == null ? m : annotated;
+  }
+
+  private static Method overriddenMethodOf(Class<?> klass, Method m) {
+    for (Class<?> supertype : supertypesOf(klass)) {
+      try {
+        Method overridden =
+            supertype.getDeclaredMethod(m.getName(), m.getParameterTypes());
+        if (isAnnotated(overridden))
+          return overridden;
+      } catch (NoSuchMethodException e) {}
+
+      Method annotated = overriddenMethodOf(supertype, m);
+      if (annotated != null)
+        return annotated;
+    }
+    return null;
+  }
+
+  // Returns the parameter annotations of the Method, where a parameter which
+  // is neither annotated by RejectNull nor AcceptNull takes the annotations of
+  // the same parameter of the nearest overridden Method which is
+  private static Annotation[][] parameterAnnotationsOf(Method m) {
+    Annotation[][] annotations = m.getParameterAnnotations();
+    if (Modifier.isStatic(m.getModifiers())
+        || Modifier.isPrivate(m.getModifiers()))
+      return annotations;
+
+    List<Method> overridden = new ArrayList<Method>();
+    overriddenMethodsOf(m.getDeclaringClass(), m, overridden);
+    for (int i = 0; i < annotations.length; i++) {
+      for (int j = 0; j < overridden.size() && !isAnnotated(annotations[i]);
+          j++) {
+        Annotation[] inherited = overridden.get(j).getParameterAnnotations()[i];
+        if (isAnnotated(inherited))
+          annotations[i] = inherited;
+      }
+    }
+    return annotations;
+  }
+
+  // Collects the overridden Methods in the same order as overriddenMethodOf
+  // searches them
+  private static void overriddenMethodsOf(Class<?> klass, Method m,
+      List<Method> overridden) {
+    for (Class<?> supertype : supertypesOf(klass)) {
+      try {
+        overridden.add(supertype.getDeclaredMethod(m.getName(),
+            m.getParameterTypes()));
+      } catch (NoSuchMethodException e) {}
+
+      overriddenMethodsOf(supertype, m, overridden);
+    }
+  }
+
+  private static boolean isAnnotated(Annotation[] annotations) {
+    return findAnnotation(annotations, RejectNull.class) != null
+        || findAnnotation(annotations, AcceptNull.class) != null;
+  }
+
+  private static boolean isAnnotated(Method m) {
+    return m.isAnnotationPresent(RejectNull.class)
+        || m.isAnnotationPresent(AcceptNull.class);
+  }
+
+  private static List<Class<?>> supertypesOf(Class<?> type) {
+    List<Class<?>> supertypes = new ArrayList<Class<?>>();
+    if (type.getSuperclass() != null)
+      supertypes.add(type.getSuperclass());
+    supertypes.addAll(Arrays.asList(type.getInterfaces()));
+    return supertypes;
+  }
+
+  private static int[] positionsOf(boolean[] flags, int count) {
+    int[] positions = new int[count];
+    int n = 0;
+    for (int i = 0; i < count; i++) {
+      if (flags[i])
+        positions[n++] = i;
+    }
+    int[] result = new int[n];
+    System.arraycopy(positions, 0, result, 0, n);
+    return result;
+  }
+
+  private static int samplingOf(RejectNull methodRN, RejectNull classRN) {
+    if (methodRN != null && methodRN.sampling() > 0)
+      return methodRN.sampling();
+    if (classRN != null && classRN.sampling() > 0)
+      return classRN.sampling();
+    return 0;
+  }
+
+  // Returns null unless the return value of the Method is checked
+  private static Class<?> returnTypeOf(Method m, RejectNull methodRN,
+      RejectNull classRN) {
+    if (m.getReturnType().isPrimitive())
+      return null;
+    if ((methodRN != null && methodRN.returns())
+        || (classRN != null && classRN.returns()))
+      return m.getReturnType();
+    return null;
+  }
+
+  private static Field[] fieldsOf(Class<?> klass, RejectNull classRN) {
+    if (classRN != null && classRN.fields())
+      return checkedFields.get(klass);
+    return noFields;
+  }
+
+  private static boolean notFoundIn(String[] nullables, String methodName) {
+    for (String name : nullables) {
+      if (methodName.equals(name))
+        return false;
+    }
+    return true;
+  }
+
+  private static <A extends Annotation> A findAnnotation(
+      Annotation[] annotations, Class<A> type) {
+    for (Annotation a : annotations) {
+      if (type.isInstance(a))
+        return type.cast(a);
+    }
+    return null;
+  }
+
+  // An exact match wins, otherwise the most specific supertype is used
+  private static Argument findArgument(Argument[] arguments, Class<?> type) {
+    Argument found = null;
+    for (Argument a : arguments) {
+      if (a.type().equals(type))
+        return a;
+      if (a.type().isAssignableFrom(type)
+          && (found == null || found.type().isAssignableFrom(a.type())))
+        found = a;
+    }
+    return found;
+  }
+
+  /**
+   * Returns true if neither a parameter, the return value nor a field needs to
+   * be checked.
+   * 
+   * @return true if nothing needs to be checked, false otherwise
+   */
+  boolean isEmpty() {
+    return indices.length == 0 && !returns && fields.length == 0;
+  }
+
+  /**
+   * Returns true if the return value needs to be checked.
+   * 
+   * @return true if the return value needs to be checked, false otherwise
+   */
+  boolean checksReturn() {
+    return returns;
+  }
+
+  /**
+   * Returns true if some arguments are replaced by checking views, which only
+   * {@link #check(Object[])} can do.
+   * 
+   * @return true if some arguments are replaced by checking views, false
+   *         otherwise
+   */
+  boolean hasViews() {
+    return viewChecks.length > 0;
+  }
+
+  /**
+   * Returns the positions of the parameters which reject null if testing them
+   * against null is all this plan does with the arguments, so a generated
+   * caller can test them inline and only run the plan when one of them is
+   * null. Returns null if the plan has deep checks or its own sampling, which
+   * have to see every call.
+   * 
+   * @return the positions of the parameters which reject null, or null if the
+   *         arguments can't be tested inline
+   */
+  int[] nullChecks() {
+    if (deepChecks.length > 0 || viewChecks.length > 0 || sampling > 1)
+      return null;
+
+    return indices.clone();
+  }
+
+  /**
+   * Returns true if the current call should be checked. Only 1 in every N
+   * calls is checked when the sampling is greater than 1, which is counted down
+   * by a per thread counter, so no contention is introduced. The decision is
+   * only made once the interceptor or advice has found this plan, so an
+   * unsampled call still pays for reaching {@link NullBlocker}.
+   * 
+   * @return true if the current call should be checked, false otherwise
+   */
+  boolean sampled() {
+    int n = sampling == 0 ? NullBlocker.getSampling() : sampling;
+    if (n <= 1 || indices.length == 0)
+      return true;
+
+    int[] count = countdown.get();
+    if (count[0] > 0) {
+      count[0]--;
+      return false;
+    }
+    count[0] = n - 1;
+    return true;
+  }
+
+  /**
+   * Throws NullPointerException if any argument which rejects null is null.
+   * The Iterable and Iterator arguments with deep checks are replaced by
+   * checking views in given array.
+   * 
+   * @param args
+   *          arguments of the Member
+   * @throws NullPointerException
+   *           if any null argument is detected
+   */
+  void check(Object[] args) {
+    for (int i = 0; i < indices.length; i++) {
+      if (args[indices[i]] == null)
+        reject(i);
+    }
+
+    for (int d : deepChecks) {
+      Object arg = args[indices[d]];
+      if (arg != null && ElementScanner.containsNull(arg))
+        reject(d + indices.length);
+    }
+    for (int v : viewChecks) {
+      Object arg = args[indices[v]];
+      if (arg != null)
+        args[indices[v]] = ElementViews.of(arg, this, v + indices.length);
+    }
+  }
+
+  /**
+   * Checks the only argument of a Member with 1 parameter.
+   * 
+   * @param arg0
+   *          the 1st argument
+   * @throws NullPointerException
+   *           if any null argument is detected
+   */
+  void check(Object arg0) {
+    if (arg0 == null) {
+      if (slot0 >= 0)
+        reject(slot0);
+    } else if (deep0 && ElementScanner.containsNull(arg0)) {
+      reject(slot0 + indices.length);
+    }
+  }
+
+  /**
+   * Checks the arguments of a Member with 2 parameters.
+   * 
+   * @param arg0
+   *          the 1st argument
+   * @param arg1
+   *          the 2nd argument
+   * @throws NullPointerException
+   *           if any null argument is detected
+   */
+  void check(Object arg0, Object arg1) {
+    check(arg0);
+    if (arg1 == null) {
+      if (slot1 >= 0)
+        reject(slot1);
+    } else if (deep1 && ElementScanner.containsNull(arg1)) {
+      reject(slot1 + indices.length);
+    }
+  }
+
+  /**
+   * Checks the arguments of a Member with 3 parameters.
+   * 
+   * @param arg0
+   *          the 1st argument
+   * @param arg1
+   *          the 2nd argument
+   * @param arg2
+   *          the 3rd argument
+   * @throws NullPointerException
+   *           if any null argument is detected
+   */
+  void check(Object arg0, Object arg1, Object arg2) {
+    check(arg0, arg1);
+    if (arg2 == null) {
+      if (slot2 >= 0)
+        reject(slot2);
+    } else if (deep2 && ElementScanner.containsNull(arg2)) {
+      reject(slot2 + indices.length);
+    }
+  }
+
+  /**
+   * Checks the return value of a Method. Return values are checked on every
+   * call regardless of the sampling, because the check costs less than the
+   * countdown.
+   * 
+   * @param result
+   *          the return value
+   * @throws NullPointerException
+   *           if the return value is null and it needs to be checked
+   */
+  void checkReturn(Object result) {
+    if (result == null && returns)
+      reject(indices.length * 2);
+  }
+
+  /**
+   * Checks the fields of an instance which is just constructed by the
+   * Constructor of this plan. The fields inherited from the superclasses of
+   * the Class are checked as well.
+   * 
+   * @param instance
+   *          a newly constructed instance
+   * @throws NullPointerException
+   *           if any field which rejects null is null
+   */
+  void checkFields(Object instance) {
+    for (int i = 0; i < fields.length; i++) {
+      Object value;
+      try {
+        value = fields[i].get(instance);
+      } catch (IllegalAccessException e) {
+        throw new IllegalStateException(e);
+      }
+      if (value == null)
+        reject(indices.length * 2 + 1 + i);
+    }
+  }
+
+  /**
+   * Throws a NullPointerException for the i-th check of this plan, or records
+   * the violation and returns if {@link NullBlocker} is in report mode. The
+   * position of a failed element check is offset by the number of checks, and
+   * the return check and then the field checks come after all the element
+   * checks.
+   * 
+   * @param i
+   *          the position of the check
+   * @throws NullPointerException
+   *           unless {@link NullBlocker} is in report mode
+   */
+  void reject(int i) {
+    if (NullBlocker.isReportOnly())
+      ViolationRing.offer(this, i);
+    else if (NullBlocker.isStackTraceEnabled())
+      throw new RejectedNullException(messages[i], this);
+    else
+      throw new RejectedNullException.Stackless(messages[i], this);
+  }
+
+  /**
+   * Creates a {@link NullViolation} for the i-th check of this plan.
+   * 
+   * @param i
+   *          the position of the check, offset by the number of checks for
+   *          element checks, the return check and the field checks
+   * @param threadName
+   *          the name of the calling thread
+   * @param timestamp
+   *          the time of the call
+   * @return a {@link NullViolation}
+   */
+  NullViolation violation(int i, String threadName, long timestamp) {
+    int index = i < indices.length * 2 ? indices[i % indices.length] : -1;
+    return new NullViolation(member, index, messages[i] + suffix(),
+        threadName, timestamp);
+  }
+
+  /**
+   * Returns the source location of the Member. It is resolved on the first
+   * rejection and reused afterward.
+   * 
+   * @return the source location of the Member
+   */
+  StackTraceElement location() {
+    StackTraceElement l = location;
+    if (l == null)
+      location = l = NullBlocker.buildLocation(member, paramTypes);
+    return l;
+  }
+
+  /**
+   * Returns the source location of the Member which is appended to the
+   * exception messages.
+   * 
+   * @return the source location of the Member
+   */
+  String suffix() {
+    String s = suffix;
+    if (s == null)
+      suffix = s = "\n\tat " + location();
+    return s;
+  }
+
+  /**
+   * Resolves the source location of this plan ahead of the first call,
+   * unless nothing needs to be checked.
+   */
+  void prewarm() {
+    if (!isEmpty())
+      suffix();
+  }
+
+  /**
+   * Returns true if given Class has a {@link RejectNull} annotation, which may
+   * be inherited from its supertypes or package.
+   * 
+   * @param klass
+   *          any Class
+   * @return true if given Class rejects null, false otherwise
+   */
+  static boolean rejectsNull(Class<?> klass) {
+    return classRejectNulls.get(klass) != null;
+  }
+
+}
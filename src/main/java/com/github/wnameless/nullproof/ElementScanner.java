@@ -0,0 +1,180 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 
+ * {@link ElementScanner} finds null elements in arrays, Collections and Maps
+ * for the deep checks of {@link CheckPlan}. Arrays and RandomAccess Lists are
+ * scanned by index loops, and other Collections and Maps are asked by
+ * contains(null), so no Iterator is allocated by the common types. Arrays
+ * longer than the parallel threshold are split on a ForkJoinPool.
+ * 
+ */
+final class ElementScanner {
+
+  /**
+   * The minimal length of an array to be scanned in parallel. It can be set by
+   * the system property <i>nullproof.parallelThreshold</i>, and 0 turns the
+   * parallel scan off.
+   */
+  static final int PARALLEL_THRESHOLD = Integer.getInteger(
+      "nullproof.parallelThreshold", 1 << 20);
+  private static final int SPLIT_THRESHOLD = 1 << 14;
+
+  private ElementScanner() {}
+
+  /**
+   * Returns true if the elements of given parameter type can be scanned.
+   * 
+   * @param type
+   *          any parameter type
+   * @return true if the elements of given parameter type can be scanned, false
+   *         otherwise
+   */
+  static boolean isScannable(Class<?> type) {
+    return (type.isArray() && !type.getComponentType().isPrimitive())
+        || Collection.class.isAssignableFrom(type)
+        || Map.class.isAssignableFrom(type) || type == Object.class;
+  }
+
+  /**
+   * Returns true if given array, Collection or Map contains any null element.
+   * 
+   * @param o
+   *          any Object
+   * @return true if any null element is found, false otherwise
+   */
+  static boolean containsNull(Object o) {
+    if (o instanceof Object[])
+      return containsNull((Object[]) o);
+    if (o instanceof List && o instanceof RandomAccess)
+      return containsNull((List<?>) o);
+    if (o instanceof Collection)
+      return containsNull((Collection<?>) o);
+    if (o instanceof Map)
+      return containsNull((Map<?, ?>) o);
+    return false;
+  }
+
+  private static boolean containsNull(Object[] array) {
+    if (PARALLEL_THRESHOLD > 0 && array.length >= PARALLEL_THRESHOLD)
+      return Parallel.pool.invoke(new ArrayScan(array, 0, array.length,
+          new AtomicBoolean()));
+
+    return containsNull(array, 0, array.length);
+  }
+
+  private static boolean containsNull(Object[] array, int from, int to) {
+    for (int i = from; i < to; i++) {
+      if (array[i] == null)
+        return true;
+    }
+    return false;
+  }
+
+  private static boolean containsNull(List<?> list) {
+    for (int i = 0, size = list.size(); i < size; i++) {
+      if (list.get(i) == null)
+        return true;
+    }
+    return false;
+  }
+
+  private static boolean containsNull(Collection<?> collection) {
+    try {
+      return collection.contains(null);
+    } catch (NullPointerException e) {
+      // The Collection doesn't permit null elements
+      return false;
+    }
+  }
+
+  private static boolean containsNull(Map<?, ?> map) {
+    boolean found;
+    try {
+      found = map.containsKey(null);
+    } catch (NullPointerException e) {
+      // The Map doesn't permit null keys
+      found = false;
+    }
+    if (found)
+      return true;
+
+    try {
+      return map.containsValue(null);
+    } catch (NullPointerException e) {
+      // The Map doesn't permit null values
+      return false;
+    }
+  }
+
+  private static final class Parallel {
+
+    private static final ForkJoinPool pool = new ForkJoinPool();
+
+  }
+
+  private static final class ArrayScan extends RecursiveTask<Boolean> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Object[] array;
+    private final int from;
+    private final int to;
+    private final AtomicBoolean found;
+
+    ArrayScan(Object[] array, int from, int to, AtomicBoolean found) {
+      this.array = array;
+      this.from = from;
+      this.to = to;
+      this.found = found;
+    }
+
+    @Override
+    protected Boolean compute() {
+      if (found.get())
+        return true;
+
+      if (to - from <= SPLIT_THRESHOLD) {
+        if (containsNull(array, from, to))
+          found.set(true);
+        return found.get();
+      }
+
+      int middle = (from + to) >>> 1;
+      ArrayScan left = new ArrayScan(array, from, middle, found);
+      left.fork();
+      boolean right = new ArrayScan(array, middle, to, found).compute();
+      return left.join() || right;
+    }
+
+  }
+
+}
@@ -0,0 +1,130 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import java.util.Iterator;
+
+/**
+ * 
+ * {@link ElementViews} provides the checking views of Iterable and Iterator
+ * arguments with deep checks. A view rejects a null element at the moment it
+ * is consumed, so a streamed input is validated without being materialized.
+ * 
+ */
+final class ElementViews {
+
+  private ElementViews() {}
+
+  /**
+   * Returns true if the arguments of given parameter type are checked by views
+   * instead of being scanned.
+   * 
+   * @param type
+   *          any parameter type
+   * @return true if the arguments are checked by views, false otherwise
+   */
+  static boolean isViewable(Class<?> type) {
+    return type == Iterable.class || type == Iterator.class;
+  }
+
+  /**
+   * Returns a checking view of given Iterable or Iterator.
+   * 
+   * @param arg
+   *          an Iterable or Iterator
+   * @param plan
+   *          the {@link CheckPlan} which rejects the null elements
+   * @param check
+   *          the position of the element check in the {@link CheckPlan}
+   * @return a checking view
+   */
+  static Object of(Object arg, CheckPlan plan, int check) {
+    if (arg instanceof CheckedIterable || arg instanceof CheckedIterator)
+      return arg;
+    if (arg instanceof Iterator)
+      return new CheckedIterator<Object>((Iterator<?>) arg, plan, check);
+    if (arg instanceof Iterable)
+      return new CheckedIterable((Iterable<?>) arg, plan, check);
+    return arg;
+  }
+
+  private static final class CheckedIterable implements Iterable<Object> {
+
+    private final Iterable<?> iterable;
+    private final CheckPlan plan;
+    private final int check;
+
+    CheckedIterable(Iterable<?> iterable, CheckPlan plan, int check) {
+      this.iterable = iterable;
+      this.plan = plan;
+      this.check = check;
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+      return new CheckedIterator<Object>(iterable.iterator(), plan, check);
+    }
+
+    @Override
+    public String toString() {
+      return iterable.toString();
+    }
+
+  }
+
+  private static final class CheckedIterator<E> implements Iterator<E> {
+
+    private final Iterator<? extends E> iterator;
+    private final CheckPlan plan;
+    private final int check;
+
+    CheckedIterator(Iterator<? extends E> iterator, CheckPlan plan, int check) {
+      this.iterator = iterator;
+      this.plan = plan;
+      this.check = check;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return iterator.hasNext();
+    }
+
+    @Override
+    public E next() {
+      E element = iterator.next();
+      if (element == null)
+        plan.reject(check);
+      return element;
+    }
+
+    @Override
+    public void remove() {
+      iterator.remove();
+    }
+
+    @Override
+    public String toString() {
+      return iterator.toString();
+    }
+
+  }
+
+}
@@ -0,0 +1,208 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.CreationException;
+import com.google.inject.Guice;
+import com.google.inject.Provider;
+import com.google.inject.Scopes;
+import com.google.inject.TypeLiteral;
+import com.google.inject.spi.InjectionPoint;
+import com.google.inject.spi.Message;
+
+/**
+ * 
+ * {@link Instantiator} creates nullproof instances of a Class through a
+ * {@link NullRejector} injector. Each injector binds the target constructor
+ * once without scope and reads the constructor arguments of every call from a
+ * ThreadLocal, so it is built only once per Class and constructor signature.
+ * With the {@link NullProof.Engine#JAVASSIST} engine, the
+ * constructor of a subclass generated by {@link ProxyClassFactory} is called
+ * directly instead.
+ * 
+ * @param <E>
+ *          type of target Class
+ */
+final class Instantiator<E> {
+
+  private static final ThreadLocal<Object[]> arguments =
+      new ThreadLocal<Object[]>();
+
+  private static final ClassValue<ConcurrentMap<List<Object>, Instantiator<?>>> instantiators =
+      new ClassValue<ConcurrentMap<List<Object>, Instantiator<?>>>() {
+
+        @Override
+        protected ConcurrentMap<List<Object>, Instantiator<?>> computeValue(
+            Class<?> type) {
+          return new ConcurrentHashMap<List<Object>, Instantiator<?>>();
+        }
+
+      };
+
+  private final Provider<E> provider;
+  private final java.lang.reflect.Constructor<? extends E> constructor;
+  private final CheckPlan plan;
+
+  private Instantiator(Provider<E> provider,
+      java.lang.reflect.Constructor<? extends E> constructor, CheckPlan plan) {
+    this.provider = provider;
+    this.constructor = constructor;
+    this.plan = plan;
+  }
+
+  /**
+   * Returns the cached {@link Instantiator} of given Class and constructor
+   * parameter types.
+   * 
+   * @param klass
+   *          Class of target object
+   * @param types
+   *          literal types of constructor parameters
+   * @return an {@link Instantiator}
+   */
+  @SuppressWarnings("unchecked")
+  static <E> Instantiator<E> of(Class<E> klass, TypeLiteral<?>[] types) {
+    ConcurrentMap<List<Object>, Instantiator<?>> cache =
+        instantiators.get(klass);
+    NullProof.Engine engine = NullProof.getEngine();
+    List<Object> key = new ArrayList<Object>(types.length + 1);
+    key.add(engine);
+    key.addAll(Arrays.asList(types));
+    Instantiator<?> instantiator = cache.get(key);
+    if (instantiator == null) {
+      if (engine == NullProof.Engine.JAVASSIST) {
+        java.lang.reflect.Constructor<? extends E> ct =
+            ProxyClassFactory.constructor(klass, rawTypes(types));
+        instantiator = new Instantiator<E>(null, ct, planOf(klass,
+            ct.getParameterTypes()));
+      } else {
+        instantiator = new Instantiator<E>(bind(klass, types), null, planOf(
+            klass, rawTypes(types)));
+      }
+      Instantiator<?> existing = cache.putIfAbsent(key, instantiator);
+      if (existing != null)
+        instantiator = existing;
+    }
+    return (Instantiator<E>) instantiator;
+  }
+
+  private static <E> Provider<E> bind(final Class<E> klass,
+      final TypeLiteral<?>[] types) {
+    return Guice.createInjector(new NullRejector(), new AbstractModule() {
+
+      @SuppressWarnings("unchecked")
+      @Override
+      protected void configure() {
+        for (int i = 0; i < types.length; i++) {
+          bind((TypeLiteral<Object>) types[i]).toProvider(
+              new ArgumentProvider(i));
+        }
+
+        try {
+          bind(klass).toConstructor(
+              klass.getDeclaredConstructor(rawTypes(types))).in(
+              Scopes.NO_SCOPE);
+        } catch (NoSuchMethodException e) {
+          bind(klass).in(Scopes.NO_SCOPE);
+        }
+      }
+
+    }).getProvider(klass);
+  }
+
+  // The field checks are part of the CheckPlan of the target constructor
+  private static CheckPlan planOf(Class<?> klass, Class<?>[] paramTypes) {
+    try {
+      return CheckPlan.of(klass.getDeclaredConstructor(paramTypes));
+    } catch (NoSuchMethodException e) {
+      return CheckPlan.of((java.lang.reflect.Constructor<?>) InjectionPoint
+          .forConstructorOf(klass).getMember());
+    }
+  }
+
+  private static Class<?>[] rawTypes(TypeLiteral<?>[] types) {
+    Class<?>[] rawTypes = new Class<?>[types.length];
+    for (int i = 0; i < types.length; i++) {
+      rawTypes[i] = types[i].getRawType();
+    }
+    return rawTypes;
+  }
+
+  /**
+   * Creates a nullproof instance with given constructor arguments. The fields
+   * of the instance are checked afterward if its Class rejects null fields.
+   * 
+   * @param args
+   *          arguments of constructor
+   * @return a nullproof instance
+   */
+  E newInstance(Object[] args) {
+    for (Object arg : args) {
+      if (arg == null)
+        throw new CreationException(Collections.singleton(new Message(
+            "Binding to null instances is not allowed.")));
+    }
+
+    E instance;
+    if (constructor != null) {
+      instance = ProxyClassFactory.newInstance(constructor, args);
+    } else {
+      Object[] outer = arguments.get();
+      arguments.set(args);
+      try {
+        instance = provider.get();
+      } finally {
+        if (outer == null)
+          arguments.remove();
+        else
+          arguments.set(outer);
+      }
+    }
+
+    if (NullBlocker.isEnabled())
+      plan.checkFields(instance);
+    return instance;
+  }
+
+  private static final class ArgumentProvider implements Provider<Object> {
+
+    private final int index;
+
+    private ArgumentProvider(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public Object get() {
+      return arguments.get()[index];
+    }
+
+  }
+
+}
@@ -0,0 +1,41 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 
+ * {@link LoggingReporter} is the default {@link NullReporter} which logs every
+ * {@link NullViolation} as a warning by java.util.logging.
+ * 
+ */
+final class LoggingReporter implements NullReporter {
+
+  private final Logger logger = Logger.getLogger(NullBlocker.class.getName());
+
+  @Override
+  public void report(NullViolation violation) {
+    logger.log(Level.WARNING, violation.toString());
+  }
+
+}
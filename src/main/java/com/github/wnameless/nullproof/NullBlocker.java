@@ -24,17 +24,15 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 
-import javassist.ClassPool;
 import javassist.CtClass;
-import javassist.CtConstructor;
-import javassist.CtMethod;
 import javassist.NotFoundException;
+import javassist.bytecode.Descriptor;
+import javassist.bytecode.MethodInfo;
 
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 
 import com.github.wnameless.nullproof.annotation.AcceptNull;
-import com.github.wnameless.nullproof.annotation.Argument;
 import com.github.wnameless.nullproof.annotation.RejectNull;
 
 /**
@@ -45,19 +43,154 @@ import com.github.wnameless.nullproof.annotation.RejectNull;
  */
 public final class NullBlocker implements MethodInterceptor {
 
-  private static final int REGULAR_ERROR = -1;
-  private static final int NO_ERROR = Integer.MIN_VALUE;
-  private static final Argument[] emptyArgAnnotAry = new Argument[0];
+  private static volatile boolean enabled = Boolean.parseBoolean(System
+      .getProperty("nullproof.enabled", "true"));
+  private static volatile boolean reportOnly = Boolean.parseBoolean(System
+      .getProperty("nullproof.reportOnly", "false"));
+  private static volatile NullReporter reporter = new LoggingReporter();
+  private static volatile int sampling = Integer.parseInt(System.getProperty(
+      "nullproof.sampling", "1"));
+  private static volatile boolean stackTraceEnabled = Boolean
+      .parseBoolean(System.getProperty("nullproof.stackTrace", "true"));
+
+  /**
+   * Turns all null checks of {@link NullBlocker} on or off at runtime. When
+   * disabled, both the Guice interceptor and the AspectJ advice return after
+   * a single flag test. The default value can be set by the system property
+   * <i>nullproof.enabled</i>.
+   * 
+   * @param enabled
+   *          true to check arguments, false to let every argument pass
+   */
+  public static void setEnabled(boolean enabled) {
+    NullBlocker.enabled = enabled;
+  }
+
+  /**
+   * Returns true if the null checks are enabled.
+   * 
+   * @return true if the null checks are enabled, false otherwise
+   */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Turns the report mode on or off. In report mode, a null argument does not
+   * raise any exception. The call proceeds as if {@link AcceptNull} applied,
+   * and the {@link NullViolation} is handed over to the {@link NullReporter}
+   * on a background thread, so the caller never waits for the reporting.
+   * Violations are dropped if the reporter falls too far behind. The default
+   * value can be set by the system property <i>nullproof.reportOnly</i>.
+   * 
+   * @param reportOnly
+   *          true to report null arguments, false to reject them
+   */
+  public static void setReportOnly(boolean reportOnly) {
+    NullBlocker.reportOnly = reportOnly;
+  }
+
+  /**
+   * Returns true if the report mode is on.
+   * 
+   * @return true if the report mode is on, false otherwise
+   */
+  public static boolean isReportOnly() {
+    return reportOnly;
+  }
+
+  /**
+   * Sets the {@link NullReporter} of the report mode. The default one logs
+   * every {@link NullViolation} as a warning by java.util.logging.
+   * 
+   * @param reporter
+   *          a {@link NullReporter}
+   */
+  public static void setReporter(NullReporter reporter) {
+    if (reporter == null)
+      throw new NullPointerException("Reporter can't be null.");
+
+    NullBlocker.reporter = reporter;
+  }
+
+  /**
+   * Returns the {@link NullReporter} of the report mode.
+   * 
+   * @return a {@link NullReporter}
+   */
+  public static NullReporter getReporter() {
+    return reporter;
+  }
+
+  /**
+   * Sets the global sampling of checks, only 1 in every N calls of each method
+   * or constructor is checked. It applies to the members without
+   * {@link RejectNull#sampling()}. The default value can be set by the system
+   * property <i>nullproof.sampling</i>.
+   * 
+   * @param sampling
+   *          the global sampling of checks, 1 checks every call
+   * @throws IllegalArgumentException
+   *           if sampling is less than 1
+   */
+  public static void setSampling(int sampling) {
+    if (sampling < 1)
+      throw new IllegalArgumentException("Sampling must be positive.");
+
+    NullBlocker.sampling = sampling;
+  }
+
+  /**
+   * Returns the global sampling of checks.
+   * 
+   * @return the global sampling of checks
+   */
+  public static int getSampling() {
+    return sampling;
+  }
+
+  /**
+   * Enables or disables the stack trace capture of the NullPointerExceptions
+   * raised by {@link NullBlocker}. Without stack trace, an exception only
+   * contains a single frame which points to the rejecting Method or
+   * Constructor, and it is much cheaper to create. The default value can be
+   * set by the system property <i>nullproof.stackTrace</i>.
+   * 
+   * @param enabled
+   *          true to capture full stack traces, false otherwise
+   */
+  public static void setStackTraceEnabled(boolean enabled) {
+    stackTraceEnabled = enabled;
+  }
+
+  /**
+   * Returns true if the stack trace capture is enabled.
+   * 
+   * @return true if the stack trace capture is enabled, false otherwise
+   */
+  public static boolean isStackTraceEnabled() {
+    return stackTraceEnabled;
+  }
 
   @Override
   public Object invoke(MethodInvocation invocation) throws Throwable {
-    blockNulls(invocation.getMethod(), invocation.getArguments());
-    return invocation.proceed();
+    if (!enabled)
+      return invocation.proceed();
+
+    CheckPlan plan = CheckPlan.of(invocation.getMethod());
+    Object[] args = invocation.getArguments();
+    if (args.length > 0 && plan.sampled())
+      plan.check(args);
+    Object result = invocation.proceed();
+    plan.checkReturn(result);
+    return result;
   }
 
   /**
    * Throws NullPointerException if any null argument of given Constructor is
-   * detected.
+   * detected. Iterable and Iterator arguments with deep checks are replaced
+   * by checking views in given array, which must be the array that is passed
+   * on to the Constructor.
    * 
    * @param ct
    *          any Constructor
@@ -67,28 +200,19 @@ public final class NullBlocker implements MethodInterceptor {
    *           if any null argument is detected
    */
   public static void blockNulls(Constructor<?> ct, Object[] args) {
-    if (args.length == 0)
+    if (!enabled || args.length == 0)
       return;
 
-    RejectNull methodRN = ct.getAnnotation(RejectNull.class);
-    if (methodRN != null) {
-      preventNulls(ct, ct.getParameterTypes(), args, methodRN.value());
-      return;
-    }
-
-    Class<?> klass = ct.getDeclaringClass();
-    AcceptNull classAN = klass.getAnnotation(AcceptNull.class);
-    RejectNull classRN = klass.getAnnotation(RejectNull.class);
-    if (classAN == null
-        || notFoundIn(classAN.value(),
-            ct.getName().substring(ct.getName().lastIndexOf('.') + 1)))
-      preventNulls(ct, ct.getParameterTypes(), args, classRN == null
-          ? emptyArgAnnotAry : classRN.value());
+    CheckPlan plan = CheckPlan.of(ct);
+    if (plan.sampled())
+      plan.check(args);
   }
 
   /**
    * Throws NullPointerException if any null argument of given Method is
-   * detected.
+   * detected. Iterable and Iterator arguments with deep checks are replaced
+   * by checking views in given array, which must be the array that is passed
+   * on to the Method.
    * 
    * @param m
    *          any Method
@@ -98,104 +222,218 @@ public final class NullBlocker implements MethodInterceptor {
    *           if any null argument is detected
    */
   public static void blockNulls(Method m, Object[] args) {
-    if (args.length == 0)
+    if (!enabled || args.length == 0)
       return;
 
-    // Object#equals is always ignored
-    if (m.getName().equals("equals") && args.length == 1) {
-      if (Object.class.equals(m.getParameterTypes()[0]))
-        return;
+    CheckPlan plan = CheckPlan.of(m);
+    if (plan.sampled())
+      plan.check(args);
+  }
+
+  /**
+   * Throws NullPointerException if any null argument of given Constructor with
+   * exactly 1 parameter is detected. Unlike
+   * {@link #blockNulls(Constructor, Object[])}, no argument array is needed.
+   * 
+   * @param ct
+   *          any Constructor
+   * @param arg0
+   *          the only argument of the Constructor
+   * @throws NullPointerException
+   *           if any null argument is detected
+   */
+  public static void blockNulls(Constructor<?> ct, Object arg0) {
+    if (enabled) {
+      CheckPlan plan = CheckPlan.of(ct);
+      if (plan.sampled())
+        plan.check(arg0);
     }
+  }
 
-    AcceptNull methodAN = m.getAnnotation(AcceptNull.class);
-    if (methodAN != null)
-      return;
+  /**
+   * Throws NullPointerException if any null argument of given Constructor with
+   * exactly 2 parameters is detected. Unlike
+   * {@link #blockNulls(Constructor, Object[])}, no argument array is needed.
+   * 
+   * @param ct
+   *          any Constructor
+   * @param arg0
+   *          the 1st argument of the Constructor
+   * @param arg1
+   *          the 2nd argument of the Constructor
+   * @throws NullPointerException
+   *           if any null argument is detected
+   */
+  public static void blockNulls(Constructor<?> ct, Object arg0, Object arg1) {
+    if (enabled) {
+      CheckPlan plan = CheckPlan.of(ct);
+      if (plan.sampled())
+        plan.check(arg0, arg1);
+    }
+  }
 
-    RejectNull methodRN = m.getAnnotation(RejectNull.class);
-    if (methodRN != null) {
-      preventNulls(m, m.getParameterTypes(), args, methodRN.value());
-      return;
+  /**
+   * Throws NullPointerException if any null argument of given Constructor with
+   * exactly 3 parameters is detected. Unlike
+   * {@link #blockNulls(Constructor, Object[])}, no argument array is needed.
+   * 
+   * @param ct
+   *          any Constructor
+   * @param arg0
+   *          the 1st argument of the Constructor
+   * @param arg1
+   *          the 2nd argument of the Constructor
+   * @param arg2
+   *          the 3rd argument of the Constructor
+   * @throws NullPointerException
+   *           if any null argument is detected
+   */
+  public static void blockNulls(Constructor<?> ct, Object arg0,
+      Object arg1, Object arg2) {
+    if (enabled) {
+      CheckPlan plan = CheckPlan.of(ct);
+      if (plan.sampled())
+        plan.check(arg0, arg1, arg2);
+    }
+  }
+
+  /**
+   * Throws NullPointerException if any null argument of given Method with
+   * exactly 1 parameter is detected. Unlike
+   * {@link #blockNulls(Method, Object[])}, no argument array is needed.
+   * 
+   * @param m
+   *          any Method
+   * @param arg0
+   *          the only argument of the Method
+   * @throws NullPointerException
+   *           if any null argument is detected
+   */
+  public static void blockNulls(Method m, Object arg0) {
+    if (enabled) {
+      CheckPlan plan = CheckPlan.of(m);
+      if (plan.sampled())
+        plan.check(arg0);
     }
+  }
 
-    Class<?> klass = m.getDeclaringClass();
-    AcceptNull classAN = klass.getAnnotation(AcceptNull.class);
-    RejectNull classRN = klass.getAnnotation(RejectNull.class);
-    if (classAN == null || notFoundIn(classAN.value(), m.getName()))
-      preventNulls(m, m.getParameterTypes(), args, classRN == null
-          ? emptyArgAnnotAry : classRN.value());
-  }
-
-  private static void preventNulls(Member m, Class<?>[] argTypes,
-      Object[] args, Argument[] arguments) {
-    for (int i = 0; i < argTypes.length; i++) {
-      Object arg = args[i];
-      Class<?> type = argTypes[i];
-      int errorType = checkErrorType(arguments, arg, type);
-      if (errorType == NO_ERROR)
-        continue;
-      else if (errorType == REGULAR_ERROR)
-        throw new NullPointerException("Parameter<" + type.getSimpleName()
-            + "> is not nullable" + buildSuffix(m, argTypes));
-      else
-        throw new NullPointerException(arguments[errorType].message()
-            + buildSuffix(m, argTypes));
+  /**
+   * Throws NullPointerException if any null argument of given Method with
+   * exactly 2 parameters is detected. Unlike
+   * {@link #blockNulls(Method, Object[])}, no argument array is needed.
+   * 
+   * @param m
+   *          any Method
+   * @param arg0
+   *          the 1st argument of the Method
+   * @param arg1
+   *          the 2nd argument of the Method
+   * @throws NullPointerException
+   *           if any null argument is detected
+   */
+  public static void blockNulls(Method m, Object arg0, Object arg1) {
+    if (enabled) {
+      CheckPlan plan = CheckPlan.of(m);
+      if (plan.sampled())
+        plan.check(arg0, arg1);
     }
   }
 
-  private static String buildSuffix(Member m, Class<?>[] argTypes) {
+  /**
+   * Throws NullPointerException if any null argument of given Method with
+   * exactly 3 parameters is detected. Unlike
+   * {@link #blockNulls(Method, Object[])}, no argument array is needed.
+   * 
+   * @param m
+   *          any Method
+   * @param arg0
+   *          the 1st argument of the Method
+   * @param arg1
+   *          the 2nd argument of the Method
+   * @param arg2
+   *          the 3rd argument of the Method
+   * @throws NullPointerException
+   *           if any null argument is detected
+   */
+  public static void blockNulls(Method m, Object arg0, Object arg1,
+      Object arg2) {
+    if (enabled) {
+      CheckPlan plan = CheckPlan.of(m);
+      if (plan.sampled())
+        plan.check(arg0, arg1, arg2);
+    }
+  }
+
+  /**
+   * Throws NullPointerException if given Method returns null and its return
+   * value rejects null.
+   * 
+   * @param m
+   *          a Method
+   * @param result
+   *          the return value of the Method
+   * @return the return value
+   * @throws NullPointerException
+   *           if a null return value is detected
+   */
+  public static Object blockNullReturn(Method m, Object result) {
+    if (enabled && result == null)
+      CheckPlan.of(m).checkReturn(null);
+    return result;
+  }
+
+  /**
+   * Throws NullPointerException if any field of an instance newly constructed
+   * by given Constructor is null and the field rejects null.
+   * 
+   * @param ct
+   *          a Constructor
+   * @param instance
+   *          the instance constructed by the Constructor
+   * @throws NullPointerException
+   *           if any null field is detected
+   */
+  public static void blockNullFields(Constructor<?> ct, Object instance) {
+    if (enabled)
+      CheckPlan.of(ct).checkFields(instance);
+  }
+
+  static StackTraceElement buildLocation(Member m, Class<?>[] argTypes) {
     Class<?> klass = m.getDeclaringClass();
 
-    ClassPool pool = ClassPool.getDefault();
     int lineNum = 1;
-    CtConstructor constructor;
-    CtMethod method;
     try {
-      CtClass cc = pool.get(klass.getName());
-      CtClass[] ctClasses = new CtClass[argTypes.length];
-      for (int i = 0; i < ctClasses.length; i++) {
-        ctClasses[i] = pool.get(argTypes[i].getName());
-      }
-      if (m instanceof Constructor) {
-        constructor = cc.getDeclaredConstructor(ctClasses);
-        lineNum = constructor.getMethodInfo().getLineNumber(0);
-      } else {
-        method = cc.getDeclaredMethod(m.getName(), ctClasses);
-        lineNum = method.getMethodInfo().getLineNumber(0) - 1;
+      CtClass cc =
+          BoundedClassPool.of(klass.getClassLoader()).get(klass.getName());
+      String name = m instanceof Constructor ? "<init>" : m.getName();
+      String params = paramDescriptor(argTypes);
+      for (Object o : cc.getClassFile2().getMethods()) {
+        MethodInfo info = (MethodInfo) o;
+        if (info.getName().equals(name)
+            && info.getDescriptor().startsWith(params)) {
+          if (m instanceof Constructor)
+            lineNum = info.getLineNumber(0);
+          else
+            lineNum = info.getLineNumber(0) - 1;
+          break;
+        }
       }
     } catch (NotFoundException e) {}
 
-    if (m instanceof Constructor)
-      return "\n\tat " + klass.getName() + "." + klass.getSimpleName() + "("
-          + klass.getSimpleName() + ".java:" + lineNum + ")";
-    else
-      return "\n\tat " + klass.getName() + "." + m.getName() + "("
-          + klass.getSimpleName() + ".java:" + lineNum + ")";
-  }
-
-  private static boolean notFoundIn(String[] nullables, String methodName) {
-    for (String name : nullables) {
-      if (methodName.equals(name))
-        return false;
-    }
-    return true;
+    return new StackTraceElement(klass.getName(),
+        m instanceof Constructor ? klass.getSimpleName() : m.getName(),
+        klass.getSimpleName() + ".java", lineNum);
   }
 
-  private static int checkErrorType(Argument[] arguments, Object arg,
-      Class<?> klass) {
-    if (arg != null)
-      return NO_ERROR;
-
-    for (int i = 0; i < arguments.length; i++) {
-      Argument a = arguments[i];
-      if (a.type().equals(klass)) {
-        if (a.ignore())
-          return NO_ERROR;
-        else
-          return i;
-      }
+  private static String paramDescriptor(Class<?>[] argTypes) {
+    StringBuilder sb = new StringBuilder("(");
+    for (Class<?> type : argTypes) {
+      if (type.isArray())
+        sb.append(type.getName().replace('.', '/'));
+      else
+        sb.append(Descriptor.of(type.getName()));
     }
-
-    return REGULAR_ERROR;
+    return sb.append(')').toString();
   }
 
 }
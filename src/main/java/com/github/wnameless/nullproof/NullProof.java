@@ -21,11 +21,17 @@
 package com.github.wnameless.nullproof;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
 
-import com.google.inject.AbstractModule;
-import com.google.inject.Guice;
+import com.google.inject.CreationException;
 import com.google.inject.TypeLiteral;
+import com.google.inject.spi.Message;
 
 /**
  * 
@@ -36,8 +42,76 @@ import com.google.inject.TypeLiteral;
  */
 public final class NullProof {
 
+  private static volatile Engine engine = Engine.valueOf(System.getProperty(
+      "nullproof.engine", "GUICE").toUpperCase());
+  private static final TypeLiteral<?>[] noTypes = new TypeLiteral<?>[0];
+  private static final Object[] noArgs = new Object[0];
+  private static final ClassValue<ConcurrentMap<List<Object>, Instantiator<?>>> resolutions =
+      new ClassValue<ConcurrentMap<List<Object>, Instantiator<?>>>() {
+
+        @Override
+        protected ConcurrentMap<List<Object>, Instantiator<?>> computeValue(
+            Class<?> type) {
+          return new ConcurrentHashMap<List<Object>, Instantiator<?>>();
+        }
+
+      };
+  private static final ClassValue<ConcurrentMap<Class<?>, TypeLiteral<?>[]>> primitiveSelections =
+      new ClassValue<ConcurrentMap<Class<?>, TypeLiteral<?>[]>>() {
+
+        @Override
+        protected ConcurrentMap<Class<?>, TypeLiteral<?>[]> computeValue(
+            Class<?> type) {
+          return new ConcurrentHashMap<Class<?>, TypeLiteral<?>[]>();
+        }
+
+      };
+
   private NullProof() {}
 
+  /**
+   * 
+   * {@link Engine} decides how {@link NullProof} creates nullproof instances.
+   * 
+   */
+  public enum Engine {
+
+    /**
+     * Guice AOP, methods are intercepted by {@link NullBlocker}.
+     */
+    GUICE,
+
+    /**
+     * Subclasses generated by Javassist, no injector is involved. The target
+     * Class must be loaded by a ClassLoader which can see NullProof.
+     */
+    JAVASSIST
+
+  }
+
+  /**
+   * Sets the {@link Engine} of all the instances created afterward. The
+   * default value can be set by the system property <i>nullproof.engine</i>.
+   * 
+   * @param engine
+   *          an {@link Engine}
+   */
+  public static void setEngine(Engine engine) {
+    if (engine == null)
+      throw new NullPointerException("Engine can't be null.");
+
+    NullProof.engine = engine;
+  }
+
+  /**
+   * Returns the {@link Engine} of {@link NullProof}.
+   * 
+   * @return an {@link Engine}
+   */
+  public static Engine getEngine() {
+    return engine;
+  }
+
   /**
    * 
    * {@link NullProof}.{@link Constructor} is a builder which is designed to
@@ -110,6 +184,222 @@ public final class NullProof {
 
   }
 
+  /**
+   * 
+   * {@link NullProof}.{@link Factory} is a reusable and thread-safe handle
+   * which creates nullproof instances of a Class. The constructor, the bindings
+   * and the enhanced subclass are all resolved when the Factory is made, so
+   * {@link #create(Object...)} only instantiates the enhanced subclass.
+   * 
+   * <P>
+   * For example:<br>
+   * 
+   * <pre>
+   * NullProof.Factory&lt;Foo&gt; factory = NullProof.factory(Foo.class,
+   *     TypeLiteral.get(String.class));
+   * Foo foo = factory.create(&quot;foo&quot;);
+   * </pre>
+   * 
+   * @param <E>
+   *          type of target Class
+   */
+  public static final class Factory<E> {
+
+    private final Class<E> klass;
+    private final int arity;
+    private final Instantiator<E> instantiator;
+
+    private Factory(Class<E> klass, TypeLiteral<?>[] types) {
+      this.klass = klass;
+      arity = types.length;
+      instantiator = Instantiator.of(klass, types);
+    }
+
+    /**
+     * Creates a nullproof instance of the Class of this Factory.
+     * 
+     * @param args
+     *          arguments of constructor
+     * @return a nullproof instance
+     */
+    public E create(Object... args) {
+      if (args.length != arity)
+        throw new CreationException(Collections.singleton(new Message(
+            "Factory of " + klass.getName() + " expects " + arity
+                + " arguments.")));
+
+      return instantiator.newInstance(args);
+    }
+
+  }
+
+  /**
+   * Returns a reusable {@link NullProof.Factory} of given Class and constructor
+   * parameter types.
+   * 
+   * @param <E>
+   *          the type of target Class
+   * @param klass
+   *          Class of target object
+   * @param types
+   *          literal types of constructor parameters
+   * @return a {@link NullProof.Factory}
+   */
+  public static <E> Factory<E> factory(Class<E> klass,
+      TypeLiteral<?>... types) {
+    return new Factory<E>(klass, types.clone());
+  }
+
+  /**
+   * Returns instances of given Class which are prevented null arguments by
+   * throwing NullPointerException from method calls, one for each row of
+   * constructor arguments. The constructor is resolved once for all rows of
+   * the same argument classes.
+   * 
+   * @param <E>
+   *          the type of target Class
+   * @param klass
+   *          Class of target object
+   * @param rows
+   *          rows of constructor arguments
+   * @return a List of nullproof instances in the order of the rows
+   */
+  public static <E> List<E> ofAll(Class<E> klass, List<Object[]> rows) {
+    return Batch.createAll(klass, rows);
+  }
+
+  /**
+   * Returns instances of given Class which are prevented null arguments by
+   * throwing NullPointerException from method calls, one for each row of
+   * constructor arguments. The rows are split into chunks which are created
+   * by given Executor concurrently.
+   * 
+   * @param <E>
+   *          the type of target Class
+   * @param klass
+   *          Class of target object
+   * @param rows
+   *          rows of constructor arguments
+   * @param executor
+   *          an Executor
+   * @return a List of nullproof instances in the order of the rows
+   */
+  public static <E> List<E> ofAll(Class<E> klass, List<Object[]> rows,
+      Executor executor) {
+    return Batch.createAll(klass, rows, executor);
+  }
+
+  /**
+   * Returns an Iterator which lazily creates an instance of given Class, which
+   * is prevented null arguments by throwing NullPointerException from method
+   * calls, for each row of constructor arguments.
+   * 
+   * @param <E>
+   *          the type of target Class
+   * @param klass
+   *          Class of target object
+   * @param rows
+   *          rows of constructor arguments
+   * @return an Iterator of nullproof instances
+   */
+  public static <E> Iterator<E> ofAll(Class<E> klass, Iterator<Object[]> rows) {
+    return Batch.createEach(klass, rows);
+  }
+
+  /**
+   * Returns a proxy of given interface which is prevented null arguments by
+   * throwing NullPointerException from method calls. Every call is delegated
+   * to given instance after the check. The annotations on the interface and
+   * its methods are used, the ones on the instance are not.
+   * 
+   * @param <T>
+   *          the type of the interface
+   * @param instance
+   *          any instance of the interface
+   * @param iface
+   *          an interface
+   * @return a nullproof proxy
+   * @throws IllegalArgumentException
+   *           if iface is not an interface
+   */
+  public static <T> T wrap(T instance, Class<T> iface) {
+    if (instance == null)
+      throw new NullPointerException("Instance can't be null.");
+    if (iface == null)
+      throw new NullPointerException("Interface can't be null.");
+
+    return NullProofHandler.wrap(instance, iface);
+  }
+
+  /**
+   * Prepares given Classes for their first calls: the checks of all their
+   * members are compiled, their source locations are resolved and the proxy
+   * classes of their constructors are generated by the current {@link Engine}.
+   * It is meant to be called on startup, so the first requests run at
+   * steady-state speed. {@link #of(Class, Object...)} still searches the
+   * constructor for each new combination of runtime argument classes once,
+   * because those classes can't be known ahead of time. The constructors
+   * which can't be bound are skipped and logged at the FINE level.
+   * 
+   * @param classes
+   *          any Classes
+   */
+  public static void prewarm(Class<?>... classes) {
+    for (Class<?> klass : classes) {
+      Prewarmer.prewarm(klass);
+    }
+  }
+
+  /**
+   * Prepares given Classes for their first calls as
+   * {@link #prewarm(Class...)} does, one task for each Class is run by given
+   * Executor, e.g. a ForkJoinPool. It returns when all Classes are prepared.
+   * 
+   * @param executor
+   *          an Executor
+   * @param classes
+   *          any Classes
+   */
+  public static void prewarm(Executor executor, Class<?>... classes) {
+    Prewarmer.prewarm(Arrays.<Class<?>> asList(classes), executor);
+  }
+
+  /**
+   * Prepares the {@link com.github.wnameless.nullproof.annotation.RejectNull
+   * RejectNull} Classes of given package and its subpackages for their first
+   * calls as {@link #prewarm(Class...)} does. The Classes are found in the
+   * directories and jars of the context ClassLoader.
+   * 
+   * @param packageName
+   *          name of a package
+   * @return the prepared Classes
+   */
+  public static List<Class<?>> prewarm(String packageName) {
+    List<Class<?>> classes = Prewarmer.scan(packageName);
+    for (Class<?> klass : classes) {
+      Prewarmer.prewarm(klass);
+    }
+    return classes;
+  }
+
+  /**
+   * Prepares the {@link com.github.wnameless.nullproof.annotation.RejectNull
+   * RejectNull} Classes of given package and its subpackages for their first
+   * calls as {@link #prewarm(String)} does, one task for each Class is run by
+   * given Executor.
+   * 
+   * @param packageName
+   *          name of a package
+   * @param executor
+   *          an Executor
+   * @return the prepared Classes
+   */
+  public static List<Class<?>> prewarm(String packageName, Executor executor) {
+    List<Class<?>> classes = Prewarmer.scan(packageName);
+    Prewarmer.prewarm(classes, executor);
+    return classes;
+  }
+
   /**
    * Returns an instance of given Class which is prevented null arguments by
    * throwing NullPointerException from method calls.
@@ -121,7 +411,7 @@ public final class NullProof {
    * @return a nullproof instance of given Class
    */
   public static <E> E of(Class<E> klass) {
-    return Guice.createInjector(new NullRejector()).getInstance(klass);
+    return Instantiator.of(klass, noTypes).newInstance(noArgs);
   }
 
   /**
@@ -141,25 +431,7 @@ public final class NullProof {
    */
   public static <E> E of(final Class<E> klass, final TypeLiteral<?>[] types,
       final Object... args) {
-    return Guice.createInjector(new NullRejector(), new AbstractModule() {
-
-      @SuppressWarnings("unchecked")
-      @Override
-      protected void configure() {
-        for (int i = 0; i < types.length; i++) {
-          bind((TypeLiteral<Object>) types[i]).toInstance((Object) args[i]);
-        }
-
-        Class<?>[] paramTypes = new Class<?>[types.length];
-        for (int i = 0; i < types.length; i++) {
-          paramTypes[i] = types[i].getRawType();
-        }
-        try {
-          bind(klass).toConstructor(klass.getDeclaredConstructor(paramTypes));
-        } catch (NoSuchMethodException e) {}
-      }
-
-    }).getInstance(klass);
+    return Instantiator.of(klass, types).newInstance(args);
   }
 
   /**
@@ -175,21 +447,7 @@ public final class NullProof {
    * @return a nullproof instance of given Class
    */
   public static <E> E of(final Class<E> klass, final byte b) {
-    try {
-      return Guice.createInjector(new NullRejector(), new AbstractModule() {
-
-        @Override
-        protected void configure() {
-          bind(byte.class).toInstance(b);
-          try {
-            bind(klass).toConstructor(klass.getDeclaredConstructor(byte.class));
-          } catch (NoSuchMethodException e) {}
-        }
-
-      }).getInstance(klass);
-    } catch (Exception e) {
-      return of(klass, Byte.valueOf(b));
-    }
+    return ofPrimitive(klass, byte.class, Byte.class, b);
   }
 
   /**
@@ -222,22 +480,7 @@ public final class NullProof {
    * @return a nullproof instance of given Class
    */
   public static <E> E of(final Class<E> klass, final short s) {
-    try {
-      return Guice.createInjector(new NullRejector(), new AbstractModule() {
-
-        @Override
-        protected void configure() {
-          bind(short.class).toInstance(s);
-          try {
-            bind(klass)
-                .toConstructor(klass.getDeclaredConstructor(short.class));
-          } catch (NoSuchMethodException e) {}
-        }
-
-      }).getInstance(klass);
-    } catch (Exception e) {
-      return of(klass, Short.valueOf(s));
-    }
+    return ofPrimitive(klass, short.class, Short.class, s);
   }
 
   /**
@@ -270,21 +513,7 @@ public final class NullProof {
    * @return a nullproof instance of given Class
    */
   public static <E> E of(final Class<E> klass, final int i) {
-    try {
-      return Guice.createInjector(new NullRejector(), new AbstractModule() {
-
-        @Override
-        protected void configure() {
-          bind(int.class).toInstance(i);
-          try {
-            bind(klass).toConstructor(klass.getDeclaredConstructor(int.class));
-          } catch (NoSuchMethodException e) {}
-        }
-
-      }).getInstance(klass);
-    } catch (Exception e) {
-      return of(klass, Integer.valueOf(i));
-    }
+    return ofPrimitive(klass, int.class, Integer.class, i);
   }
 
   /**
@@ -317,21 +546,7 @@ public final class NullProof {
    * @return a nullproof instance of given Class
    */
   public static <E> E of(final Class<E> klass, final long l) {
-    try {
-      return Guice.createInjector(new NullRejector(), new AbstractModule() {
-
-        @Override
-        protected void configure() {
-          bind(long.class).toInstance(l);
-          try {
-            bind(klass).toConstructor(klass.getDeclaredConstructor(long.class));
-          } catch (NoSuchMethodException e) {}
-        }
-
-      }).getInstance(klass);
-    } catch (Exception e) {
-      return of(klass, Long.valueOf(l));
-    }
+    return ofPrimitive(klass, long.class, Long.class, l);
   }
 
   /**
@@ -364,22 +579,7 @@ public final class NullProof {
    * @return a nullproof instance of given Class
    */
   public static <E> E of(final Class<E> klass, final float f) {
-    try {
-      return Guice.createInjector(new NullRejector(), new AbstractModule() {
-
-        @Override
-        protected void configure() {
-          bind(float.class).toInstance(f);
-          try {
-            bind(klass)
-                .toConstructor(klass.getDeclaredConstructor(float.class));
-          } catch (NoSuchMethodException e) {}
-        }
-
-      }).getInstance(klass);
-    } catch (Exception e) {
-      return of(klass, Float.valueOf(f));
-    }
+    return ofPrimitive(klass, float.class, Float.class, f);
   }
 
   /**
@@ -412,22 +612,7 @@ public final class NullProof {
    * @return a nullproof instance of given Class
    */
   public static <E> E of(final Class<E> klass, final double d) {
-    try {
-      return Guice.createInjector(new NullRejector(), new AbstractModule() {
-
-        @Override
-        protected void configure() {
-          bind(double.class).toInstance(d);
-          try {
-            bind(klass).toConstructor(
-                klass.getDeclaredConstructor(double.class));
-          } catch (NoSuchMethodException e) {}
-        }
-
-      }).getInstance(klass);
-    } catch (Exception e) {
-      return of(klass, Double.valueOf(d));
-    }
+    return ofPrimitive(klass, double.class, Double.class, d);
   }
 
   /**
@@ -460,22 +645,7 @@ public final class NullProof {
    * @return a nullproof instance of given Class
    */
   public static <E> E of(final Class<E> klass, final boolean b) {
-    try {
-      return Guice.createInjector(new NullRejector(), new AbstractModule() {
-
-        @Override
-        protected void configure() {
-          bind(boolean.class).toInstance(b);
-          try {
-            bind(klass).toConstructor(
-                klass.getDeclaredConstructor(boolean.class));
-          } catch (NoSuchMethodException e) {}
-        }
-
-      }).getInstance(klass);
-    } catch (Exception e) {
-      return of(klass, Boolean.valueOf(b));
-    }
+    return ofPrimitive(klass, boolean.class, Boolean.class, b);
   }
 
   /**
@@ -508,21 +678,7 @@ public final class NullProof {
    * @return a nullproof instance of given Class
    */
   public static <E> E of(final Class<E> klass, final char c) {
-    try {
-      return Guice.createInjector(new NullRejector(), new AbstractModule() {
-
-        @Override
-        protected void configure() {
-          bind(char.class).toInstance(c);
-          try {
-            bind(klass).toConstructor(klass.getDeclaredConstructor(char.class));
-          } catch (NoSuchMethodException e) {}
-        }
-
-      }).getInstance(klass);
-    } catch (Exception e) {
-      return of(klass, Character.valueOf(c));
-    }
+    return ofPrimitive(klass, char.class, Character.class, c);
   }
 
   /**
@@ -542,6 +698,30 @@ public final class NullProof {
         .addArgument(c).create();
   }
 
+  /**
+   * Creates an instance of given Class by its constructor of the primitive
+   * type, or by its constructor of the boxed type if there is none. The choice
+   * is made once per Class and primitive type.
+   */
+  private static <E> E ofPrimitive(Class<E> klass, Class<?> primitiveType,
+      Class<?> boxedType, Object arg) {
+    ConcurrentMap<Class<?>, TypeLiteral<?>[]> cache =
+        primitiveSelections.get(klass);
+    TypeLiteral<?>[] types = cache.get(primitiveType);
+    if (types == null) {
+      Class<?> type = boxedType;
+      for (java.lang.reflect.Constructor<?> ct : klass
+          .getDeclaredConstructors()) {
+        Class<?>[] paramTypes = ct.getParameterTypes();
+        if (paramTypes.length == 1 && paramTypes[0] == primitiveType)
+          type = primitiveType;
+      }
+      types = new TypeLiteral<?>[] { TypeLiteral.get(type) };
+      cache.putIfAbsent(primitiveType, types);
+    }
+    return Instantiator.of(klass, types).newInstance(new Object[] { arg });
+  }
+
   /**
    * Returns an instance of given Class which is prevented null arguments by
    * throwing NullPointerException from method calls. This method only handles
@@ -556,43 +736,71 @@ public final class NullProof {
    * @return a nullproof instance of given Class
    */
   public static <E> E of(final Class<E> klass, final Object... args) {
-    return Guice.createInjector(new NullRejector(), new AbstractModule() {
-
-      @SuppressWarnings("unchecked")
-      @Override
-      protected void configure() {
-        Class<?>[] paramTypes = new Class<?>[0];
-        for (java.lang.reflect.Constructor<?> ct : klass
-            .getDeclaredConstructors()) {
-          boolean involkable = true;
-
-          paramTypes = ct.getParameterTypes();
-          if (paramTypes.length != args.length) {
-            continue;
-          } else {
-            for (int i = 0; i < args.length; i++) {
-              if (args[i] == null)
-                continue;
-
-              involkable = isConvertable(paramTypes[i], args[i].getClass());
-              if (!involkable)
-                break;
-            }
-          }
-
-          if (involkable)
-            break;
-        }
+    return resolve(klass, args).newInstance(args);
+  }
+
+  /**
+   * Returns the cached {@link Instantiator} of the constructor which matches
+   * the runtime classes of given arguments. The reflective search only runs
+   * once per Class, argument classes and {@link Engine}.
+   * 
+   * @param <E>
+   *          the type of target Class
+   * @param klass
+   *          Class of target object
+   * @param args
+   *          arguments of constructor
+   * @return an {@link Instantiator}
+   */
+  static <E> Instantiator<E> resolve(Class<E> klass, Object[] args) {
+    Class<?>[] argTypes = new Class<?>[args.length];
+    List<Object> key = new ArrayList<Object>(args.length + 1);
+    key.add(engine);
+    for (int i = 0; i < args.length; i++) {
+      argTypes[i] = args[i] == null ? null : args[i].getClass();
+      key.add(argTypes[i]);
+    }
+
+    ConcurrentMap<List<Object>, Instantiator<?>> cache =
+        resolutions.get(klass);
+    @SuppressWarnings("unchecked")
+    Instantiator<E> instantiator = (Instantiator<E>) cache.get(key);
+    if (instantiator == null) {
+      instantiator = search(klass, argTypes);
+      cache.putIfAbsent(key, instantiator);
+    }
+    return instantiator;
+  }
+
+  private static <E> Instantiator<E> search(Class<E> klass,
+      Class<?>[] argTypes) {
+    for (java.lang.reflect.Constructor<?> ct : klass
+        .getDeclaredConstructors()) {
+      Class<?>[] paramTypes = ct.getParameterTypes();
+      if (paramTypes.length != argTypes.length)
+        continue;
+
+      boolean involkable = true;
+      for (int i = 0; i < argTypes.length; i++) {
+        if (argTypes[i] == null)
+          continue;
+
+        involkable = isConvertable(paramTypes[i], argTypes[i]);
+        if (!involkable)
+          break;
+      }
 
-        for (int i = 0; i < args.length; i++) {
-          bind((Class<Object>) paramTypes[i]).toInstance((Object) args[i]);
+      if (involkable) {
+        TypeLiteral<?>[] types = new TypeLiteral<?>[paramTypes.length];
+        for (int i = 0; i < types.length; i++) {
+          types[i] = TypeLiteral.get(paramTypes[i]);
         }
-        try {
-          bind(klass).toConstructor(klass.getDeclaredConstructor(paramTypes));
-        } catch (NoSuchMethodException e) {}
+        return Instantiator.of(klass, types);
       }
+    }
 
-    }).getInstance(klass);
+    throw new CreationException(Collections.singleton(new Message(
+        "No constructor of " + klass.getName() + " matches the arguments.")));
   }
 
   private static boolean isConvertable(Class<?> klass1, Class<?> klass2) {
@@ -0,0 +1,129 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+/**
+ * 
+ * {@link NullProofHandler} guards an existing instance behind one of its
+ * interfaces. Each call on the proxy is checked by the cached
+ * {@link CheckPlan} of the interface Method before it is delegated to the
+ * instance. The constructor of the proxy class is cached per interface.
+ * equals, hashCode and toString are delegated to the instance as well, and a
+ * proxy passed to equals is compared by its own instance, so a proxy is equal
+ * to whatever its instance is equal to.
+ * 
+ */
+final class NullProofHandler implements InvocationHandler {
+
+  private static final ClassValue<Constructor<?>> proxyConstructors =
+      new ClassValue<Constructor<?>>() {
+
+        // Proxy.getProxyClass is deprecated since Java 9, but it is the only
+        // way to reuse the constructor of a proxy class on Java 7
+        @SuppressWarnings("deprecation")
+        @Override
+        protected Constructor<?> computeValue(Class<?> type) {
+          try {
+            return Proxy.getProxyClass(type.getClassLoader(), type)
+                .getConstructor(InvocationHandler.class);
+          } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+
+      };
+
+  private final Object target;
+
+  private NullProofHandler(Object target) {
+    this.target = target;
+  }
+
+  /**
+   * Returns a proxy of given interface which rejects null arguments before
+   * delegating to given instance.
+   * 
+   * @param <T>
+   *          type of the interface
+   * @param instance
+   *          any instance of the interface
+   * @param iface
+   *          an interface
+   * @return a nullproof proxy
+   * @throws IllegalArgumentException
+   *           if iface is not an interface
+   */
+  static <T> T wrap(T instance, Class<T> iface) {
+    if (!iface.isInterface())
+      throw new IllegalArgumentException(iface.getName()
+          + " is not an interface.");
+    if (!iface.isInstance(instance))
+      throw new IllegalArgumentException(instance.getClass().getName()
+          + " is not an instance of " + iface.getName() + ".");
+
+    try {
+      return iface.cast(proxyConstructors.get(iface).newInstance(
+          new NullProofHandler(instance)));
+    } catch (InvocationTargetException e) {
+      throw new IllegalStateException(e.getCause());
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public Object invoke(Object proxy, Method method, Object[] args)
+      throws Throwable {
+    // equals, hashCode and toString are not checked
+    if (method.getDeclaringClass() == Object.class) {
+      if (method.getName().equals("equals"))
+        return target.equals(unwrap(args[0]));
+      if (method.getName().equals("hashCode"))
+        return target.hashCode();
+      return target.toString();
+    }
+
+    if (args != null)
+      NullBlocker.blockNulls(method, args);
+
+    try {
+      return NullBlocker.blockNullReturn(method, method.invoke(target, args));
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+
+  private static Object unwrap(Object o) {
+    if (o != null && Proxy.isProxyClass(o.getClass())) {
+      InvocationHandler handler = Proxy.getInvocationHandler(o);
+      if (handler instanceof NullProofHandler)
+        return ((NullProofHandler) handler).target;
+    }
+    return o;
+  }
+
+}
@@ -22,7 +22,10 @@ package com.github.wnameless.nullproof;
 
 import static com.google.inject.matcher.Matchers.any;
 
+import java.lang.reflect.Method;
+
 import com.google.inject.AbstractModule;
+import com.google.inject.matcher.AbstractMatcher;
 
 /**
  * 
@@ -34,7 +37,25 @@ public final class NullRejector extends AbstractModule {
 
   @Override
   protected void configure() {
-    bindInterceptor(any(), any(), new NullBlocker());
+    bindInterceptor(any(), new NullableMethods(), new NullBlocker());
+  }
+
+  /**
+   * 
+   * {@link NullableMethods} only matches the methods which have at least one
+   * parameter rejecting null. Getters, methods with only primitive parameters
+   * and methods annotated with
+   * {@link com.github.wnameless.nullproof.annotation.AcceptNull AcceptNull} are
+   * dispatched directly without the interceptor.
+   * 
+   */
+  static final class NullableMethods extends AbstractMatcher<Method> {
+
+    @Override
+    public boolean matches(Method method) {
+      return !CheckPlan.of(method).isEmpty();
+    }
+
   }
 
 }
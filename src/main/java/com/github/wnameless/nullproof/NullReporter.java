@@ -0,0 +1,40 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+/**
+ * 
+ * {@link NullReporter} receives the {@link NullViolation}s which are detected
+ * by {@link NullBlocker} in report mode. It is always called on the reporter
+ * thread of NullProof, never on the thread which passed the null argument.
+ * 
+ */
+public interface NullReporter {
+
+  /**
+   * Reports a {@link NullViolation}.
+   * 
+   * @param violation
+   *          a {@link NullViolation}
+   */
+  void report(NullViolation violation);
+
+}
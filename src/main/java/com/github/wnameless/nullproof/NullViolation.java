@@ -0,0 +1,101 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import java.lang.reflect.Member;
+
+/**
+ * 
+ * {@link NullViolation} describes a null argument which is detected by
+ * {@link NullBlocker} in report mode.
+ * 
+ */
+public final class NullViolation {
+
+  private final Member member;
+  private final int parameterIndex;
+  private final String message;
+  private final String threadName;
+  private final long timestamp;
+
+  NullViolation(Member member, int parameterIndex, String message,
+      String threadName, long timestamp) {
+    this.member = member;
+    this.parameterIndex = parameterIndex;
+    this.message = message;
+    this.threadName = threadName;
+    this.timestamp = timestamp;
+  }
+
+  /**
+   * Returns the Method or Constructor which received the null argument.
+   * 
+   * @return a Method or Constructor
+   */
+  public Member getMember() {
+    return member;
+  }
+
+  /**
+   * Returns the position of the null argument, or -1 if the null is a return
+   * value or a field.
+   * 
+   * @return the position of the null argument or -1
+   */
+  public int getParameterIndex() {
+    return parameterIndex;
+  }
+
+  /**
+   * Returns the message which would have been thrown with the
+   * NullPointerException.
+   * 
+   * @return the message of the violation
+   */
+  public String getMessage() {
+    return message;
+  }
+
+  /**
+   * Returns the name of the thread which passed the null argument.
+   * 
+   * @return a thread name
+   */
+  public String getThreadName() {
+    return threadName;
+  }
+
+  /**
+   * Returns the time when the violation was detected.
+   * 
+   * @return the time in milliseconds since the epoch
+   */
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  @Override
+  public String toString() {
+    return message + " (parameter " + parameterIndex + " of " + member
+        + ", thread " + threadName + ", time " + timestamp + ")";
+  }
+
+}
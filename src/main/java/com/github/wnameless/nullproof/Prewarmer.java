@@ -0,0 +1,227 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executor;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.google.inject.ConfigurationException;
+import com.google.inject.CreationException;
+import com.google.inject.TypeLiteral;
+
+/**
+ * 
+ * {@link Prewarmer} does the work of the first calls to the members of a Class
+ * ahead of time: the {@link CheckPlan}s are built with their source
+ * locations, and an {@link Instantiator} is created for each
+ * constructor, which generates the proxy class of the current
+ * {@link NullProof.Engine}. The constructors resolved by the runtime classes
+ * of the arguments of {@link NullProof#of(Class, Object...)} are not
+ * prewarmed, because those classes are only known on the first call.
+ * 
+ */
+final class Prewarmer {
+
+  private Prewarmer() {}
+
+  /**
+   * Prewarms all the members of given Class. The constructors which can't be
+   * bound by {@link NullProof} are skipped and logged.
+   * 
+   * @param klass
+   *          any Class
+   */
+  static void prewarm(Class<?> klass) {
+    for (Constructor<?> ct : klass.getDeclaredConstructors()) {
+      if (!Modifier.isPrivate(ct.getModifiers()))
+        CheckPlan.of(ct).prewarm();
+    }
+    for (Method m : klass.getDeclaredMethods()) {
+      if (!m.isSynthetic() && !Modifier.isPrivate(m.getModifiers()))
+        CheckPlan.of(m).prewarm();
+    }
+    for (Method m : klass.getMethods()) {
+      Class<?> declaringClass = m.getDeclaringClass();
+      if (declaringClass != klass && declaringClass != Object.class)
+        CheckPlan.of(m).prewarm();
+    }
+
+    if (!isInstantiable(klass))
+      return;
+
+    for (Constructor<?> ct : klass.getDeclaredConstructors()) {
+      if (Modifier.isPrivate(ct.getModifiers()))
+        continue;
+
+      Class<?>[] paramTypes = ct.getParameterTypes();
+      TypeLiteral<?>[] types = new TypeLiteral<?>[paramTypes.length];
+      for (int i = 0; i < types.length; i++) {
+        types[i] = TypeLiteral.get(paramTypes[i]);
+      }
+      // Skips the constructors which NullProof can't bind either
+      try {
+        Instantiator.of(klass, types);
+      } catch (CreationException e) {
+        skip(ct, e);
+      } catch (ConfigurationException e) {
+        skip(ct, e);
+      }
+    }
+  }
+
+  private static void skip(Constructor<?> ct, RuntimeException e) {
+    Logger.getLogger(NullBlocker.class.getName()).log(Level.FINE,
+        "Prewarming of " + ct + " is skipped.", e);
+  }
+
+  private static boolean isInstantiable(Class<?> klass) {
+    int modifiers = klass.getModifiers();
+    return !klass.isInterface() && !klass.isArray() && !klass.isPrimitive()
+        && !klass.isEnum() && !Modifier.isAbstract(modifiers)
+        && (klass.getEnclosingClass() == null || Modifier.isStatic(modifiers));
+  }
+
+  /**
+   * Prewarms given Classes by given Executor, one task for each Class, and
+   * waits for all of them.
+   * 
+   * @param classes
+   *          any Classes
+   * @param executor
+   *          an Executor
+   */
+  static void prewarm(List<Class<?>> classes, Executor executor) {
+    List<Runnable> jobs = new ArrayList<Runnable>(classes.size());
+    for (final Class<?> klass : classes) {
+      jobs.add(new Runnable() {
+
+        @Override
+        public void run() {
+          prewarm(klass);
+        }
+
+      });
+    }
+    Batch.runAll(jobs, executor);
+  }
+
+  /**
+   * Returns the {@link com.github.wnameless.nullproof.annotation.RejectNull
+   * RejectNull} Classes of given package and its subpackages, which are found
+   * in the directories and jars of the context ClassLoader.
+   * 
+   * @param packageName
+   *          name of a package
+   * @return a List of Classes
+   */
+  static List<Class<?>> scan(String packageName) {
+    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+    if (loader == null)
+      loader = Prewarmer.class.getClassLoader();
+
+    String path = packageName.replace('.', '/');
+    Set<String> names = new TreeSet<String>();
+    try {
+      Enumeration<URL> urls = loader.getResources(path);
+      while (urls.hasMoreElements()) {
+        URL url = urls.nextElement();
+        if ("file".equals(url.getProtocol())) {
+          scanDirectory(new File(url.toURI()), packageName, names);
+        } else if ("jar".equals(url.getProtocol())) {
+          JarURLConnection conn = (JarURLConnection) url.openConnection();
+          conn.setUseCaches(false);
+          JarFile jar = conn.getJarFile();
+          try {
+            scanJar(jar, path, names);
+          } finally {
+            jar.close();
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    } catch (URISyntaxException e) {
+      throw new IllegalStateException(e);
+    }
+
+    List<Class<?>> classes = new ArrayList<Class<?>>();
+    for (String name : names) {
+      Class<?> klass;
+      try {
+        klass = Class.forName(name, false, loader);
+      } catch (ClassNotFoundException e) {
+        continue;
+      } catch (LinkageError e) {
+        continue;
+      }
+      if (!klass.isAnonymousClass() && !klass.isLocalClass()
+          && !klass.isSynthetic() && CheckPlan.rejectsNull(klass))
+        classes.add(klass);
+    }
+    return classes;
+  }
+
+  private static void scanDirectory(File dir, String packageName,
+      Set<String> names) {
+    File[] files = dir.listFiles();
+    if (files == null)
+      return;
+
+    for (File file : files) {
+      String name = file.getName();
+      if (file.isDirectory())
+        scanDirectory(file, packageName + "." + name, names);
+      else
+        addClassName(packageName + "." + name, names);
+    }
+  }
+
+  private static void scanJar(JarFile jar, String path, Set<String> names) {
+    Enumeration<JarEntry> entries = jar.entries();
+    while (entries.hasMoreElements()) {
+      String name = entries.nextElement().getName();
+      if (name.startsWith(path + "/"))
+        addClassName(name.replace('/', '.'), names);
+    }
+  }
+
+  private static void addClassName(String fileName, Set<String> names) {
+    if (fileName.endsWith(".class") && !fileName.endsWith("package-info.class"))
+      names.add(fileName.substring(0, fileName.length() - ".class".length()));
+  }
+
+}
@@ -0,0 +1,318 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtField;
+import javassist.CtMethod;
+import javassist.CtNewConstructor;
+import javassist.LoaderClassPath;
+import javassist.NotFoundException;
+
+import com.google.inject.CreationException;
+import com.google.inject.ProvisionException;
+import com.google.inject.spi.Message;
+
+/**
+ * 
+ * {@link ProxyClassFactory} generates nullproof subclasses by Javassist for
+ * the {@link NullProof.Engine#JAVASSIST} engine. Each overridden method calls
+ * {@link NullBlocker#blockNulls} with its own Method before calling the super
+ * method, so neither an injector nor a MethodInvocation is involved. When the
+ * {@link CheckPlan} of a method has nothing but null tests, each parameter
+ * which rejects null is tested by an unrolled if statement in the method
+ * itself, and {@link NullBlocker} is only called once a test fails or a global
+ * sampling is set. Every method thus has its own loop-free check, which the
+ * JIT can inline. Methods which have no parameter rejecting null are not
+ * overridden at all. The subclass is defined in the ClassLoader of its target
+ * Class and is generated only once per Class.
+ * 
+ */
+final class ProxyClassFactory {
+
+  private static final AtomicInteger counter = new AtomicInteger();
+
+  private static final ClassValue<Class<?>> proxyClasses =
+      new ClassValue<Class<?>>() {
+
+        @Override
+        protected Class<?> computeValue(Class<?> type) {
+          return generate(type);
+        }
+
+      };
+
+  private ProxyClassFactory() {}
+
+  /**
+   * Returns the constructor of the nullproof subclass of given Class.
+   * 
+   * @param <E>
+   *          type of target Class
+   * @param klass
+   *          Class of target object
+   * @param paramTypes
+   *          constructor parameter types
+   * @return a Constructor of the nullproof subclass
+   * @throws CreationException
+   *           if the subclass can't be generated or has no such constructor
+   */
+  static <E> Constructor<? extends E> constructor(Class<E> klass,
+      Class<?>[] paramTypes) {
+    Class<? extends E> proxy = proxyClasses.get(klass).asSubclass(klass);
+    try {
+      return proxy.getConstructor(paramTypes);
+    } catch (NoSuchMethodException e) {
+      throw new CreationException(Collections.singleton(new Message(
+          "No constructor of " + klass.getName() + " matches the arguments.")));
+    }
+  }
+
+  /**
+   * Creates an instance by given Constructor of a nullproof subclass.
+   * 
+   * @param <E>
+   *          type of target Class
+   * @param ct
+   *          a Constructor of a nullproof subclass
+   * @param args
+   *          arguments of constructor
+   * @return a nullproof instance
+   * @throws ProvisionException
+   *           if the constructor fails
+   */
+  static <E> E newInstance(Constructor<? extends E> ct, Object[] args) {
+    try {
+      return ct.newInstance(args);
+    } catch (InvocationTargetException e) {
+      throw new ProvisionException("Error injecting constructor of "
+          + ct.getDeclaringClass().getSuperclass().getName(), e.getCause());
+    } catch (Exception e) {
+      throw new ProvisionException("Error injecting constructor of "
+          + ct.getDeclaringClass().getSuperclass().getName(), e);
+    }
+  }
+
+  private static Class<?> generate(Class<?> klass) {
+    ClassLoader loader = klass.getClassLoader();
+    int modifiers = klass.getModifiers();
+    if (loader == null || klass.isInterface() || klass.isArray()
+        || klass.isPrimitive() || Modifier.isFinal(modifiers)
+        || Modifier.isPrivate(modifiers))
+      throw failure(klass, null);
+
+    List<Method> methods = overridableMethods(klass);
+    String name = klass.getName() + "$$NullProof$$" + counter.incrementAndGet();
+    ClassPool pool = new ClassPool(true);
+    pool.appendClassPath(new LoaderClassPath(loader));
+    try {
+      CtClass cc = pool.makeClass(name, pool.get(klass.getName()));
+      for (Constructor<?> ct : klass.getDeclaredConstructors()) {
+        if (Modifier.isPrivate(ct.getModifiers()))
+          continue;
+
+        cc.addConstructor(CtNewConstructor.make(
+            ctTypes(pool, ct.getParameterTypes()),
+            ctTypes(pool, ct.getExceptionTypes()), cc));
+      }
+      for (int i = 0; i < methods.size(); i++) {
+        Method m = methods.get(i);
+        cc.addField(CtField.make("static java.lang.reflect.Method m" + i
+            + ";", cc));
+
+        CtMethod cm = new CtMethod(ctType(pool, m.getReturnType()),
+            m.getName(), ctTypes(pool, m.getParameterTypes()), cc);
+        cm.setExceptionTypes(ctTypes(pool, m.getExceptionTypes()));
+        cm.setModifiers(m.getModifiers()
+            & (Modifier.PUBLIC | Modifier.PROTECTED));
+        cm.setBody(body(m, i));
+        cc.addMethod(cm);
+      }
+
+      Class<?> proxy = cc.toClass(loader, klass.getProtectionDomain());
+      cc.detach();
+      for (int i = 0; i < methods.size(); i++) {
+        Field field = proxy.getDeclaredField("m" + i);
+        field.setAccessible(true);
+        field.set(null, methods.get(i));
+      }
+      return proxy;
+    } catch (Exception e) {
+      throw failure(klass, e);
+    } catch (LinkageError e) {
+      throw failure(klass, e);
+    }
+  }
+
+  private static List<Method> overridableMethods(Class<?> klass) {
+    List<Method> methods = new ArrayList<Method>();
+    Set<List<Object>> signatures = new HashSet<List<Object>>();
+    for (Class<?> c = klass; c != null && c != Object.class; c =
+        c.getSuperclass()) {
+      for (Method m : c.getDeclaredMethods()) {
+        if (m.isSynthetic() || m.isBridge())
+          continue;
+
+        List<Object> signature = new ArrayList<Object>();
+        signature.add(m.getName());
+        signature.addAll(Arrays.asList(m.getParameterTypes()));
+        if (!signatures.add(signature))
+          continue;
+
+        int modifiers = m.getModifiers();
+        if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers)
+            || Modifier.isPrivate(modifiers)
+            || Modifier.isAbstract(modifiers))
+          continue;
+        if (!Modifier.isPublic(modifiers) && !Modifier.isProtected(modifiers)
+            && !isSamePackage(c, klass))
+          continue;
+        if (CheckPlan.of(m).isEmpty())
+          continue;
+
+        methods.add(m);
+      }
+    }
+    return methods;
+  }
+
+  private static boolean isSamePackage(Class<?> c1, Class<?> c2) {
+    if (c1.getClassLoader() != c2.getClassLoader())
+      return false;
+
+    String n1 = c1.getName();
+    String n2 = c2.getName();
+    return n1.substring(0, Math.max(n1.lastIndexOf('.'), 0)).equals(
+        n2.substring(0, Math.max(n2.lastIndexOf('.'), 0)));
+  }
+
+  private static String body(Method m, int index) {
+    Class<?>[] paramTypes = m.getParameterTypes();
+    StringBuilder body = new StringBuilder("{");
+    CheckPlan plan = CheckPlan.of(m);
+    if (plan.hasViews())
+      return viewingBody(m, index);
+
+    int[] positions = plan.nullChecks();
+    if (positions != null && positions.length > 0) {
+      // NullBlocker counts every call down while a global sampling is set
+      body.append("if (").append(NullBlocker.class.getName())
+          .append(".getSampling() > 1");
+      for (int p : positions) {
+        body.append(" || $").append(p + 1).append(" == null");
+      }
+      body.append(") ");
+    }
+    if (paramTypes.length > 0
+        && (positions == null || positions.length > 0)) {
+      body.append(NullBlocker.class.getName()).append(".blockNulls(m")
+          .append(index);
+      if (paramTypes.length > 3) {
+        body.append(", $args");
+      } else {
+        // Primitive parameters never reject null, so they are not boxed
+        for (int i = 0; i < paramTypes.length; i++) {
+          body.append(", (java.lang.Object) ").append(
+              paramTypes[i].isPrimitive() ? "null" : "$" + (i + 1));
+        }
+      }
+      body.append(");");
+    }
+    return body.append(superCall(m, index, "$$")).append("}").toString();
+  }
+
+  // Arguments may be replaced by checking views, so the super method is
+  // called with the checked argument array
+  private static String viewingBody(Method m, int index) {
+    Class<?>[] paramTypes = m.getParameterTypes();
+    StringBuilder body = new StringBuilder("{Object[] args = $args;");
+    body.append(NullBlocker.class.getName()).append(".blockNulls(m")
+        .append(index).append(", args);");
+    StringBuilder args = new StringBuilder();
+    for (int i = 0; i < paramTypes.length; i++) {
+      if (i > 0)
+        args.append(", ");
+      if (paramTypes[i].isPrimitive())
+        args.append("$").append(i + 1);
+      else
+        args.append("(").append(javaName(paramTypes[i])).append(") args[")
+            .append(i).append("]");
+    }
+    return body.append(superCall(m, index, args.toString())).append("}")
+        .toString();
+  }
+
+  // Return values which reject null are passed through NullBlocker
+  private static String superCall(Method m, int index, String args) {
+    String call = "super." + m.getName() + "(" + args + ")";
+    if (m.getReturnType() == void.class)
+      return call + ";";
+    if (!CheckPlan.of(m).checksReturn())
+      return "return " + call + ";";
+    return "return (" + javaName(m.getReturnType()) + ") "
+        + NullBlocker.class.getName() + ".blockNullReturn(m" + index + ", "
+        + call + ");";
+  }
+
+  private static String javaName(Class<?> type) {
+    StringBuilder name = new StringBuilder();
+    while (type.isArray()) {
+      name.append("[]");
+      type = type.getComponentType();
+    }
+    return type.getName() + name;
+  }
+
+  private static CtClass ctType(ClassPool pool, Class<?> type)
+      throws NotFoundException {
+    return pool.get(javaName(type));
+  }
+
+  private static CtClass[] ctTypes(ClassPool pool, Class<?>[] types)
+      throws NotFoundException {
+    CtClass[] ctTypes = new CtClass[types.length];
+    for (int i = 0; i < types.length; i++) {
+      ctTypes[i] = ctType(pool, types[i]);
+    }
+    return ctTypes;
+  }
+
+  private static CreationException failure(Class<?> klass, Throwable cause) {
+    return new CreationException(Collections.singleton(new Message(
+        Collections.emptyList(), "Can't generate a nullproof subclass of "
+            + klass.getName() + ".", cause)));
+  }
+
+}
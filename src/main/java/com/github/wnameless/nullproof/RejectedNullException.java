@@ -0,0 +1,80 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+/**
+ * 
+ * {@link RejectedNullException} is the NullPointerException raised by a
+ * {@link CheckPlan}. Its message is only built when it is requested, so
+ * callers which simply catch the exception never pay for the source location
+ * lookup and the String concatenation.
+ * 
+ */
+class RejectedNullException extends NullPointerException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String reason;
+  private final transient CheckPlan plan;
+  private volatile String message;
+
+  RejectedNullException(String reason, CheckPlan plan) {
+    this.reason = reason;
+    this.plan = plan;
+  }
+
+  @Override
+  public String getMessage() {
+    String m = message;
+    if (m == null)
+      message = m = reason + plan.suffix();
+    return m;
+  }
+
+  private Object writeReplace() {
+    NullPointerException npe = new NullPointerException(getMessage());
+    npe.setStackTrace(getStackTrace());
+    return npe;
+  }
+
+  /**
+   * 
+   * {@link Stackless} skips the stack trace capture and only keeps a single
+   * frame which points to the rejecting Member.
+   * 
+   */
+  static final class Stackless extends RejectedNullException {
+
+    private static final long serialVersionUID = 1L;
+
+    Stackless(String reason, CheckPlan plan) {
+      super(reason, plan);
+      setStackTrace(new StackTraceElement[] { plan.location() });
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+      return this;
+    }
+
+  }
+
+}
@@ -0,0 +1,179 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 
+ * {@link ViolationRing} is a preallocated lock-free ring buffer which hands
+ * the violations detected in report mode over to a background reporter
+ * thread. Any number of threads may offer violations, while only the reporter
+ * thread drains them. A violation is dropped instead of blocking the caller
+ * when the buffer is full. The reporter thread parks while the buffer is
+ * empty, and a caller only unparks it when it is actually parked.
+ * 
+ */
+final class ViolationRing {
+
+  static final int CAPACITY = 1024;
+  private static final int MASK = CAPACITY - 1;
+
+  private static final Slot[] slots = new Slot[CAPACITY];
+  static {
+    for (int i = 0; i < CAPACITY; i++) {
+      slots[i] = new Slot(i);
+    }
+  }
+  private static final AtomicLong tail = new AtomicLong();
+  private static final AtomicLong dropped = new AtomicLong();
+  private static final AtomicBoolean started = new AtomicBoolean();
+  private static volatile Thread reporter;
+  private static volatile boolean idle;
+  private static long head;
+
+  private static final class Slot {
+
+    volatile long sequence;
+    CheckPlan plan;
+    int index;
+    String threadName;
+    long timestamp;
+
+    Slot(long sequence) {
+      this.sequence = sequence;
+    }
+
+  }
+
+  private ViolationRing() {}
+
+  /**
+   * Records a violation without blocking. Nothing is allocated, except the
+   * name String that Thread#getName creates on Java 8 and earlier.
+   * 
+   * @param plan
+   *          the {@link CheckPlan} which detects the null argument
+   * @param index
+   *          the position of the check in the {@link CheckPlan}
+   * @return true if the violation is recorded, false if the buffer is full
+   */
+  static boolean offer(CheckPlan plan, int index) {
+    if (!started.get() && started.compareAndSet(false, true))
+      startReporter();
+
+    long pos = tail.get();
+    while (true) {
+      Slot slot = slots[(int) (pos & MASK)];
+      long diff = slot.sequence - pos;
+      if (diff == 0) {
+        if (tail.compareAndSet(pos, pos + 1)) {
+          slot.plan = plan;
+          slot.index = index;
+          slot.threadName = Thread.currentThread().getName();
+          slot.timestamp = System.currentTimeMillis();
+          slot.sequence = pos + 1;
+          if (idle)
+            LockSupport.unpark(reporter);
+          return true;
+        }
+      } else if (diff < 0) {
+        dropped.incrementAndGet();
+        return false;
+      }
+      pos = tail.get();
+    }
+  }
+
+  /**
+   * Returns the number of violations which are dropped because the buffer is
+   * full.
+   * 
+   * @return the number of dropped violations
+   */
+  static long droppedCount() {
+    return dropped.get();
+  }
+
+  /**
+   * Reports all the recorded violations. It must only be called by the
+   * reporter thread.
+   * 
+   * @return the number of reported violations
+   */
+  private static int drain() {
+    int count = 0;
+    while (true) {
+      Slot slot = slots[(int) (head & MASK)];
+      if (slot.sequence != head + 1)
+        return count;
+
+      CheckPlan plan = slot.plan;
+      int index = slot.index;
+      String threadName = slot.threadName;
+      long timestamp = slot.timestamp;
+      slot.plan = null;
+      slot.threadName = null;
+      slot.sequence = head + CAPACITY;
+      head++;
+      count++;
+
+      // Nothing may stop the reporter thread, or the buffer silently fills up
+      try {
+        NullBlocker.getReporter().report(
+            plan.violation(index, threadName, timestamp));
+      } catch (Throwable t) {
+        Logger.getLogger(NullBlocker.class.getName()).log(Level.WARNING,
+            "NullReporter failed.", t);
+      }
+    }
+  }
+
+  private static void startReporter() {
+    Thread thread = new Thread(new Runnable() {
+
+      // The buffer is drained once more after idle is set, so a violation
+      // offered in between is either drained or unparks this thread
+      @Override
+      public void run() {
+        while (true) {
+          if (drain() > 0)
+            continue;
+
+          idle = true;
+          if (drain() == 0)
+            LockSupport.park(ViolationRing.class);
+          idle = false;
+        }
+      }
+
+    }, "nullproof-reporter");
+    thread.setDaemon(true);
+    thread.setContextClassLoader(null);
+    reporter = thread;
+    thread.start();
+  }
+
+}
@@ -21,7 +21,10 @@
 package com.github.wnameless.nullproof.annotation;
 
 import static java.lang.annotation.ElementType.CONSTRUCTOR;
+import static java.lang.annotation.ElementType.FIELD;
 import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PACKAGE;
+import static java.lang.annotation.ElementType.PARAMETER;
 import static java.lang.annotation.ElementType.TYPE;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
@@ -35,11 +38,15 @@ import com.github.wnameless.nullproof.NullProof;
  * {@link AcceptNull} can be used to let {@link NullProof} ignore certain
  * methods. It can be annotated both on Type and Method, but the value only
  * takes effect when it is on a Type, otherwise it ignores the annotated Method
- * directly.
+ * directly. On a parameter, it lets the parameter accept null even if another
+ * parameter of the same type rejects null. On a Field, it excludes the Field
+ * from the field checks of
+ * {@link com.github.wnameless.nullproof.annotation.RejectNull#fields()
+ * RejectNull}. It is inherited in the same way as {@link RejectNull}.
  * 
  */
 @Retention(RUNTIME)
-@Target({ TYPE, CONSTRUCTOR, METHOD })
+@Target({ TYPE, CONSTRUCTOR, METHOD, PARAMETER, FIELD, PACKAGE })
 public @interface AcceptNull {
 
   /**
@@ -41,7 +41,10 @@ import com.github.wnameless.nullproof.NullProof;
 public @interface Argument {
 
   /**
-   * The target Class of arguments.
+   * The target Class of arguments. It also applies to the parameters of its
+   * subtypes, including the implementations of an interface. When several
+   * {@link Argument}s apply to a parameter, the one of the exact type is used,
+   * or else the one of the most specific supertype.
    * 
    * @return any Class
    */
@@ -63,4 +66,12 @@ public @interface Argument {
    */
   boolean ignore() default false;
 
+  /**
+   * Option to reject the null elements of arguments of target Class as well.
+   * It works on arrays, Collections and Maps (both keys and values).
+   * 
+   * @return true if the null elements are rejected, false otherwise
+   */
+  boolean deep() default false;
+
 }
@@ -22,9 +22,12 @@ package com.github.wnameless.nullproof.annotation;
 
 import static java.lang.annotation.ElementType.CONSTRUCTOR;
 import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PACKAGE;
+import static java.lang.annotation.ElementType.PARAMETER;
 import static java.lang.annotation.ElementType.TYPE;
 import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
+import java.lang.annotation.Inherited;
 import java.lang.annotation.Retention;
 import java.lang.annotation.Target;
 
@@ -37,11 +40,16 @@ import com.github.wnameless.nullproof.NullProof;
  * any null argument is found. This annotation should use with
  * {@link NullProof#of} or
  * {@link com.github.wnameless.nullproof.NullProof.Constructor
- * NullProof.Constructor} for AOP purpose.
+ * NullProof.Constructor} for AOP purpose. On a parameter, it rejects null even
+ * if the type of the parameter is ignored by an {@link Argument}, and only
+ * {@link #deep()} takes effect. A type inherits this annotation from its
+ * superclasses, its interfaces and then its package, and a method inherits it
+ * from the method it overrides.
  * 
  */
+@Inherited
 @Retention(RUNTIME)
-@Target({ TYPE, CONSTRUCTOR, METHOD })
+@Target({ TYPE, CONSTRUCTOR, METHOD, PARAMETER, PACKAGE })
 public @interface RejectNull {
 
   /**
@@ -51,4 +59,44 @@ public @interface RejectNull {
    */
   Argument[] value() default {};
 
+  /**
+   * Checks only 1 in every N calls of each method or constructor. The other
+   * calls still pass through the interceptor or advice, which only skips the
+   * checks. The counters are kept per thread. A method annotation without
+   * sampling uses the sampling of its class, and 0 means the global sampling
+   * of {@link com.github.wnameless.nullproof.NullBlocker#setSampling(int)
+   * NullBlocker} is used.
+   * 
+   * @return the sampling of checks, 1 checks every call
+   */
+  int sampling() default 0;
+
+  /**
+   * Option to reject the null elements of all array, Collection and Map
+   * arguments as well. Map keys and values are both checked.
+   * 
+   * @return true if the null elements are rejected, false otherwise
+   */
+  boolean deep() default false;
+
+  /**
+   * Option to reject the null return values of methods as well. It is ignored
+   * by constructors and methods returning primitives or void. A method
+   * annotation can turn it on for a single method, and the methods of a class
+   * with this option can only opt out by {@link AcceptNull}.
+   * 
+   * @return true if the null return values are rejected, false otherwise
+   */
+  boolean returns() default false;
+
+  /**
+   * Option to reject the null fields of a newly constructed instance as well.
+   * It only works on a type, and all the reference fields declared or
+   * inherited by the type except the {@link AcceptNull} annotated ones are
+   * checked once any of its constructors completes.
+   * 
+   * @return true if the null fields are rejected, false otherwise
+   */
+  boolean fields() default false;
+
 }
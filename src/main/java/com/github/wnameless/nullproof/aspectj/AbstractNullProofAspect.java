@@ -21,6 +21,9 @@
 package com.github.wnameless.nullproof.aspectj;
 
 import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.aspectj.lang.annotation.Pointcut;
@@ -28,7 +31,30 @@ import org.aspectj.lang.reflect.ConstructorSignature;
 import org.aspectj.lang.reflect.MethodSignature;
 
 import com.github.wnameless.nullproof.NullBlocker;
+import com.github.wnameless.nullproof.annotation.RejectNull;
 
+/**
+ * 
+ * {@link AbstractNullProofAspect} weaves {@link NullBlocker} into the public
+ * methods and constructors of {@link RejectNull} annotated classes. Members
+ * with up to 3 parameters receive their arguments directly from the pointcut,
+ * so a passing check allocates neither a JoinPoint nor an argument array
+ * (primitive arguments are still boxed by AspectJ). When
+ * {@link NullBlocker#setEnabled(boolean)} turns the checks off, the advice is
+ * skipped by a single flag test. Members with Iterable or Iterator parameters
+ * and deep checks declared by {@link RejectNull#deep()} on the class, the
+ * member or a parameter are advised around instead, so the arguments can be
+ * replaced by checking views. AspectJ can't match the deep checks declared by
+ * an {@link com.github.wnameless.nullproof.annotation.Argument Argument}, so
+ * the aspect only rejects such Iterable and Iterator arguments if they are
+ * null. Return values and fields are only advised for the members which
+ * reject null return values or fields, so the other members are not affected
+ * at all. The subclasses of {@link RejectNull} annotated classes are advised
+ * as well, but AspectJ can't match the annotations inherited from interfaces
+ * and packages, so they only take effect through
+ * {@link com.github.wnameless.nullproof.NullProof NullProof}.
+ * 
+ */
 @Aspect
 public abstract class AbstractNullProofAspect {
 
@@ -38,20 +64,94 @@ public abstract class AbstractNullProofAspect {
   @Pointcut("args(*, ..)")
   public void atLeast1Argument() {}
 
+  @Pointcut("args(*, *, *, *, ..)")
+  public void atLeast4Arguments() {}
+
+  @Pointcut("if()")
+  public static boolean nullProofEnabled() {
+    return NullBlocker.isEnabled();
+  }
+
+  @Pointcut("execution(* *(.., Iterable, ..)) || execution(* *(.., java.util.Iterator, ..)) "
+      + "|| execution(*.new(.., Iterable, ..)) || execution(*.new(.., java.util.Iterator, ..))")
+  public void iterableArgument() {}
+
+  @Pointcut("within(@com.github.wnameless.nullproof.annotation.RejectNull(deep=true) *) "
+      + "|| execution(@com.github.wnameless.nullproof.annotation.RejectNull(deep=true) * *(..)) "
+      + "|| execution(@com.github.wnameless.nullproof.annotation.RejectNull(deep=true) *.new(..)) "
+      + "|| execution(* *(.., @com.github.wnameless.nullproof.annotation.RejectNull (*), ..)) "
+      + "|| execution(*.new(.., @com.github.wnameless.nullproof.annotation.RejectNull (*), ..))")
+  public void deepArgument() {}
+
+  // Around advice creates a JoinPoint and an argument array on every call, so
+  // it is only woven where the deep checks may replace the arguments by views
+  @Pointcut("iterableArgument() && deepArgument()")
+  public void viewingArgument() {}
+
   @Pointcut("execution(*.new(..))")
   public void constructor() {}
 
   @Pointcut("classAnnotatedWithRejectNull() && constructor() && atLeast1Argument() "
-      + "&& !@annotation(com.github.wnameless.nullproof.annotation.AcceptNull)")
+      + "&& !@annotation(com.github.wnameless.nullproof.annotation.AcceptNull) "
+      + "&& nullProofEnabled()")
   public
       void constructorOfRejectNullAnnotatedClassWithoutAcceptNull() {}
 
-  @Before("constructorOfRejectNullAnnotatedClassWithoutAcceptNull()")
+  @Before(value = "constructorOfRejectNullAnnotatedClassWithoutAcceptNull() && !viewingArgument() && args(arg0)", argNames = "arg0")
+  public void rejectNullForConsructors(JoinPoint.StaticPart jointPoint,
+      Object arg0) {
+    ConstructorSignature sig = (ConstructorSignature) jointPoint.getSignature();
+    NullBlocker.blockNulls(sig.getConstructor(), arg0);
+  }
+
+  @Before(value = "constructorOfRejectNullAnnotatedClassWithoutAcceptNull() && !viewingArgument() && args(arg0, arg1)", argNames = "arg0,arg1")
+  public void rejectNullForConsructors(JoinPoint.StaticPart jointPoint,
+      Object arg0, Object arg1) {
+    ConstructorSignature sig = (ConstructorSignature) jointPoint.getSignature();
+    NullBlocker.blockNulls(sig.getConstructor(), arg0, arg1);
+  }
+
+  @Before(value = "constructorOfRejectNullAnnotatedClassWithoutAcceptNull() && !viewingArgument() && args(arg0, arg1, arg2)", argNames = "arg0,arg1,arg2")
+  public void rejectNullForConsructors(JoinPoint.StaticPart jointPoint,
+      Object arg0, Object arg1, Object arg2) {
+    ConstructorSignature sig = (ConstructorSignature) jointPoint.getSignature();
+    NullBlocker.blockNulls(sig.getConstructor(), arg0, arg1, arg2);
+  }
+
+  @Before("constructorOfRejectNullAnnotatedClassWithoutAcceptNull() && !viewingArgument() && atLeast4Arguments()")
   public void rejectNullForConsructors(JoinPoint jointPoint) {
     ConstructorSignature sig = (ConstructorSignature) jointPoint.getSignature();
     NullBlocker.blockNulls(sig.getConstructor(), jointPoint.getArgs());
   }
 
+  @Around("constructorOfRejectNullAnnotatedClassWithoutAcceptNull() && viewingArgument()")
+  public Object rejectNullLazilyForConstructors(ProceedingJoinPoint joinPoint)
+      throws Throwable {
+    ConstructorSignature sig = (ConstructorSignature) joinPoint.getSignature();
+    Object[] args = joinPoint.getArgs();
+    NullBlocker.blockNulls(sig.getConstructor(), args);
+    return joinPoint.proceed(args);
+  }
+
+  // Unlike the execution of a constructor, the initialization ends only after
+  // the first called constructor returns, so chained constructors are done
+  @Pointcut("initialization(*.new(..))")
+  public void objectInitialization() {}
+
+  @Pointcut("within(@com.github.wnameless.nullproof.annotation.RejectNull(fields=true) *) "
+      + "&& objectInitialization() "
+      + "&& !@annotation(com.github.wnameless.nullproof.annotation.AcceptNull) "
+      + "&& nullProofEnabled()")
+  public
+      void constructorOfRejectNullAnnotatedClassWithRejectNullFields() {}
+
+  @AfterReturning(value = "constructorOfRejectNullAnnotatedClassWithRejectNullFields() && this(instance)", argNames = "instance")
+  public void rejectNullFieldsForConstructors(JoinPoint.StaticPart jointPoint,
+      Object instance) {
+    ConstructorSignature sig = (ConstructorSignature) jointPoint.getSignature();
+    NullBlocker.blockNullFields(sig.getConstructor(), instance);
+  }
+
   @Pointcut("execution(public * *(..))")
   public void publicMethod() {}
 
@@ -59,14 +159,63 @@ public abstract class AbstractNullProofAspect {
   public void equalsMethod() {}
 
   @Pointcut("classAnnotatedWithRejectNull() && publicMethod() && !equalsMethod() && atLeast1Argument() "
-      + "&& !@annotation(com.github.wnameless.nullproof.annotation.AcceptNull)")
+      + "&& !@annotation(com.github.wnameless.nullproof.annotation.AcceptNull) "
+      + "&& nullProofEnabled()")
   public
       void publicMethodOfRejectNullAnnotatedClassWithoutAcceptNull() {}
 
-  @Before("publicMethodOfRejectNullAnnotatedClassWithoutAcceptNull()")
+  @Before(value = "publicMethodOfRejectNullAnnotatedClassWithoutAcceptNull() && !viewingArgument() && args(arg0)", argNames = "arg0")
+  public void rejectNullForPublicMethods(JoinPoint.StaticPart jointPoint,
+      Object arg0) {
+    MethodSignature sig = (MethodSignature) jointPoint.getSignature();
+    NullBlocker.blockNulls(sig.getMethod(), arg0);
+  }
+
+  @Before(value = "publicMethodOfRejectNullAnnotatedClassWithoutAcceptNull() && !viewingArgument() && args(arg0, arg1)", argNames = "arg0,arg1")
+  public void rejectNullForPublicMethods(JoinPoint.StaticPart jointPoint,
+      Object arg0, Object arg1) {
+    MethodSignature sig = (MethodSignature) jointPoint.getSignature();
+    NullBlocker.blockNulls(sig.getMethod(), arg0, arg1);
+  }
+
+  @Before(value = "publicMethodOfRejectNullAnnotatedClassWithoutAcceptNull() && !viewingArgument() && args(arg0, arg1, arg2)", argNames = "arg0,arg1,arg2")
+  public void rejectNullForPublicMethods(JoinPoint.StaticPart jointPoint,
+      Object arg0, Object arg1, Object arg2) {
+    MethodSignature sig = (MethodSignature) jointPoint.getSignature();
+    NullBlocker.blockNulls(sig.getMethod(), arg0, arg1, arg2);
+  }
+
+  @Before("publicMethodOfRejectNullAnnotatedClassWithoutAcceptNull() && !viewingArgument() && atLeast4Arguments()")
   public void rejectNullForPublicMethods(JoinPoint jointPoint) {
     MethodSignature sig = (MethodSignature) jointPoint.getSignature();
     NullBlocker.blockNulls(sig.getMethod(), jointPoint.getArgs());
   }
 
+  @Around("publicMethodOfRejectNullAnnotatedClassWithoutAcceptNull() && viewingArgument()")
+  public Object rejectNullLazilyForPublicMethods(ProceedingJoinPoint joinPoint)
+      throws Throwable {
+    MethodSignature sig = (MethodSignature) joinPoint.getSignature();
+    Object[] args = joinPoint.getArgs();
+    NullBlocker.blockNulls(sig.getMethod(), args);
+    return joinPoint.proceed(args);
+  }
+
+  @Pointcut("within(@com.github.wnameless.nullproof.annotation.RejectNull(returns=true) *) "
+      + "|| execution(@com.github.wnameless.nullproof.annotation.RejectNull(returns=true) * *(..))")
+  public void returnsRejectNull() {}
+
+  @Pointcut("classAnnotatedWithRejectNull() && publicMethod() && execution(Object+ *(..)) "
+      + "&& returnsRejectNull() "
+      + "&& !@annotation(com.github.wnameless.nullproof.annotation.AcceptNull) "
+      + "&& nullProofEnabled()")
+  public
+      void publicMethodOfRejectNullAnnotatedClassWithRejectNullReturns() {}
+
+  @AfterReturning(pointcut = "publicMethodOfRejectNullAnnotatedClassWithRejectNullReturns()", returning = "result", argNames = "result")
+  public void rejectNullReturnForPublicMethods(
+      JoinPoint.StaticPart jointPoint, Object result) {
+    MethodSignature sig = (MethodSignature) jointPoint.getSignature();
+    NullBlocker.blockNullReturn(sig.getMethod(), result);
+  }
+
 }
@@ -25,5 +25,11 @@ import org.junit.runners.Suite;
 import org.junit.runners.Suite.SuiteClasses;
 
 @RunWith(Suite.class)
-@SuiteClasses({ NullProofAspectTest.class, NullProofTest.class })
+@SuiteClasses({ AllocationTest.class, BatchTest.class,
+    BoundedClassPoolTest.class, CheckPlanTest.class, DeepCheckTest.class,
+    ElementViewsTest.class, FieldCheckTest.class, InheritanceTest.class,
+    JavassistEngineTest.class, NullProofAspectTest.class, NullProofTest.class,
+    NullRejectorTest.class, ParameterAnnotationTest.class, PrewarmTest.class,
+    ReportModeTest.class, ReturnCheckTest.class, SamplingTest.class,
+    WrapTest.class })
 public class AllTests {}
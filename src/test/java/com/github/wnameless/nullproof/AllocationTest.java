@@ -0,0 +1,193 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AllocationTest {
+
+  private static final int CALLS = 100000;
+
+  com.sun.management.ThreadMXBean threadBean;
+  long threadId;
+  AnnotatedFoo5 foo;
+
+  @Before
+  public void setUp() {
+    java.lang.management.ThreadMXBean bean =
+        ManagementFactory.getThreadMXBean();
+    assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+    threadBean = (com.sun.management.ThreadMXBean) bean;
+    assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+    threadBean.setThreadAllocatedMemoryEnabled(true);
+    threadId = Thread.currentThread().getId();
+    foo = new AnnotatedFoo5("", 1, 1d);
+  }
+
+  private long allocatedBytes() {
+    return threadBean.getThreadAllocatedBytes(threadId);
+  }
+
+  private long measure(Runnable call) {
+    for (int i = 0; i < CALLS; i++) {
+      call.run();
+    }
+    long overhead = allocatedBytes();
+    overhead = allocatedBytes() - overhead;
+
+    long start = allocatedBytes();
+    for (int i = 0; i < CALLS; i++) {
+      call.run();
+    }
+    return (allocatedBytes() - start - overhead) / CALLS;
+  }
+
+  @Test
+  public void testBlockNullsWithArrayAllocatesNothing() throws Exception {
+    final Method m = Foo.class.getMethod("equals", Integer.class, Double.class);
+    final Object[] args = new Object[] { 1, 1d };
+    assertEquals(0, measure(new Runnable() {
+
+      @Override
+      public void run() {
+        NullBlocker.blockNulls(m, args);
+      }
+
+    }));
+  }
+
+  @Test
+  public void testBlockNullsWithArgumentsAllocatesNothing() throws Exception {
+    final Method m = Foo.class.getMethod("barString", String.class);
+    assertEquals(0, measure(new Runnable() {
+
+      @Override
+      public void run() {
+        NullBlocker.blockNulls(m, "");
+      }
+
+    }));
+  }
+
+  @Test
+  public void testAspectOnMethodsAllocatesNothing() {
+    final String s = "";
+    final Integer i = 1;
+    final Double d = 1d;
+    assertEquals(0, measure(new Runnable() {
+
+      @Override
+      public void run() {
+        foo.bar(s);
+        foo.bar(s, i);
+        foo.bar(s, i, d);
+      }
+
+    }));
+  }
+
+  @Test
+  public void testAspectOnShallowIterableAllocatesNothing() {
+    final Iterable<String> iterable = Arrays.asList("");
+    assertEquals(0, measure(new Runnable() {
+
+      @Override
+      public void run() {
+        foo.baz(iterable);
+      }
+
+    }));
+  }
+
+  @Test
+  public void testJavassistEngineWithManyArgumentsAllocatesNothing() {
+    final String s = "";
+    final Integer i = 1;
+    NullProof.setEngine(NullProof.Engine.JAVASSIST);
+    final ProxiedFoo proxied;
+    try {
+      proxied = NullProof.of(ProxiedFoo.class);
+    } finally {
+      NullProof.setEngine(NullProof.Engine.GUICE);
+    }
+    assertEquals(0, measure(new Runnable() {
+
+      @Override
+      public void run() {
+        proxied.same(s, i, i, s);
+      }
+
+    }));
+  }
+
+  @Test
+  public void testDisabledAspectAllocatesNothing() {
+    final Double d = 1d;
+    final Float f = 1f;
+    NullBlocker.setEnabled(false);
+    try {
+      assertEquals(0, measure(new Runnable() {
+
+        @Override
+        public void run() {
+          foo.bar(null, null, d, f);
+        }
+
+      }));
+    } finally {
+      NullBlocker.setEnabled(true);
+    }
+  }
+
+  @Test
+  public void testReportModeAllocatesNothing() throws Exception {
+    final Method m = Foo.class.getMethod("barString", String.class);
+    NullBlocker.setReporter(new NullReporter() {
+
+      @Override
+      public void report(NullViolation violation) {}
+
+    });
+    NullBlocker.setReportOnly(true);
+    try {
+      assertEquals(0, measure(new Runnable() {
+
+        @Override
+        public void run() {
+          NullBlocker.blockNulls(m, (Object) null);
+        }
+
+      }));
+    } finally {
+      NullBlocker.setReportOnly(false);
+      NullBlocker.setReporter(new LoggingReporter());
+    }
+  }
+
+}
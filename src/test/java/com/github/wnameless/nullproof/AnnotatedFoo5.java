@@ -27,4 +27,16 @@ public class AnnotatedFoo5 {
 
   public AnnotatedFoo5(String s, Integer i, Double d) {}
 
+  public AnnotatedFoo5(String s, Integer i, Double d, Float f) {}
+
+  public void bar(String s) {}
+
+  public void bar(String s, Integer i) {}
+
+  public void bar(String s, Integer i, Double d) {}
+
+  public void bar(String s, Integer i, Double d, Float f) {}
+
+  public void baz(Iterable<String> iterable) {}
+
 }
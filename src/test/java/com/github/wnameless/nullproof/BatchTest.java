@@ -0,0 +1,123 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.inject.CreationException;
+
+public class BatchTest {
+
+  static ExecutorService executor;
+
+  @BeforeClass
+  public static void setUpClass() {
+    executor = Executors.newFixedThreadPool(3);
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+    executor.shutdown();
+  }
+
+  private static List<Object[]> rows(int size) {
+    List<Object[]> rows = new ArrayList<Object[]>();
+    for (int i = 0; i < size; i++) {
+      rows.add(new Object[] { "" + i });
+    }
+    return rows;
+  }
+
+  private static void assertNames(int size, List<ProxiedFoo> foos) {
+    assertEquals(size, foos.size());
+    for (int i = 0; i < size; i++) {
+      assertEquals("" + i, foos.get(i).name(""));
+    }
+  }
+
+  @Test
+  public void testOfAll() {
+    List<ProxiedFoo> foos = NullProof.ofAll(ProxiedFoo.class, rows(100));
+    assertNames(100, foos);
+    try {
+      foos.get(0).name(null);
+      fail();
+    } catch (NullPointerException ex) {}
+  }
+
+  @Test
+  public void testOfAllWithMixedRows() {
+    List<Object[]> rows = new ArrayList<Object[]>();
+    rows.add(new Object[] { "" });
+    rows.add(new Object[] { 1, "" });
+    rows.add(new Object[] {});
+    rows.add(new Object[] { "" });
+    List<Foo> foos = NullProof.ofAll(Foo.class, rows);
+    assertEquals(4, foos.size());
+    assertSame(foos.get(0).getClass(), foos.get(3).getClass());
+  }
+
+  @Test
+  public void testOfAllWithExecutor() {
+    assertNames(1000,
+        NullProof.ofAll(ProxiedFoo.class, rows(1000), executor));
+    assertNames(2, NullProof.ofAll(ProxiedFoo.class, rows(2), executor));
+    assertNames(0, NullProof.ofAll(ProxiedFoo.class, rows(0), executor));
+  }
+
+  @Test(expected = CreationException.class)
+  public void testOfAllWithExecutorAndNullArgument() {
+    List<Object[]> rows = rows(100);
+    rows.set(50, new Object[] { null });
+    NullProof.ofAll(ProxiedFoo.class, rows, executor);
+  }
+
+  @Test
+  public void testLazyOfAll() {
+    Iterator<ProxiedFoo> foos =
+        NullProof.ofAll(ProxiedFoo.class, Arrays.asList(new Object[] { "a" },
+            new Object[] { null }).iterator());
+    assertTrue(foos.hasNext());
+    assertEquals("a", foos.next().name(""));
+    assertTrue(foos.hasNext());
+    try {
+      foos.next();
+      fail();
+    } catch (CreationException ex) {}
+    assertFalse(foos.hasNext());
+  }
+
+}
@@ -0,0 +1,105 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtNewMethod;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class BoundedClassPoolTest {
+
+  private static final int CLASSES = 1000;
+
+  @ClassRule
+  public static TemporaryFolder folder = new TemporaryFolder();
+
+  @BeforeClass
+  public static void generateClasses() throws Exception {
+    ClassPool pool = new ClassPool(true);
+    for (int i = 0; i < CLASSES; i++) {
+      CtClass cc = pool.makeClass("generated.Rejected" + i);
+      cc.addMethod(CtNewMethod.make("public void bar(String s) {}", cc));
+      cc.writeFile(folder.getRoot().getPath());
+      cc.detach();
+    }
+  }
+
+  @Test
+  public void testPoolIsBoundedWithinClassLoader() throws Exception {
+    ClassLoader loader = newClassLoader();
+    rejectAll(loader);
+    assertEquals(BoundedClassPool.CAPACITY, BoundedClassPool.of(loader).size());
+  }
+
+  @Test
+  public void testPoolIsReleasedWithClassLoader() throws Exception {
+    ClassLoader loader = newClassLoader();
+    rejectAll(loader);
+    int count = BoundedClassPool.poolCount();
+    WeakReference<ClassLoader> ref = new WeakReference<ClassLoader>(loader);
+    loader = null;
+
+    for (int i = 0; i < 100 && ref.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(ref.get());
+    assertTrue(BoundedClassPool.poolCount() < count);
+  }
+
+  private static ClassLoader newClassLoader() throws Exception {
+    return new URLClassLoader(new URL[] { new File(folder.getRoot().getPath())
+        .toURI().toURL() }, BoundedClassPoolTest.class.getClassLoader());
+  }
+
+
+  private static void rejectAll(ClassLoader loader) throws Exception {
+    for (int i = 0; i < CLASSES; i++) {
+      Method m =
+          loader.loadClass("generated.Rejected" + i).getMethod("bar",
+              String.class);
+      try {
+        NullBlocker.blockNulls(m, new Object[] { null });
+        fail();
+      } catch (NullPointerException ex) {
+        assertNotNull(ex.getMessage());
+      }
+    }
+  }
+
+}
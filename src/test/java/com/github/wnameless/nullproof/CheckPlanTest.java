@@ -0,0 +1,212 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.Test;
+
+public class CheckPlanTest {
+
+  @Test
+  public void testPlanIsCachedPerMethod() throws Exception {
+    CheckPlan plan =
+        CheckPlan.of(Foo.class.getMethod("barString", String.class));
+    assertSame(plan,
+        CheckPlan.of(Foo.class.getMethod("barString", String.class)));
+  }
+
+  @Test
+  public void testPlanIsCachedPerConstructor() throws Exception {
+    CheckPlan plan = CheckPlan.of(Foo.class.getConstructor(String.class));
+    assertSame(plan, CheckPlan.of(Foo.class.getConstructor(String.class)));
+  }
+
+  @Test
+  public void testMethodsOfObjectShareOneEmptyPlan() throws Exception {
+    CheckPlan plan = CheckPlan.of(Object.class.getMethod("toString"));
+    assertTrue(plan.isEmpty());
+    assertSame(plan, CheckPlan.of(Object.class.getMethod("hashCode")));
+  }
+
+  @Test
+  public void testPlanOfAncestorLoaderIsCached() throws Exception {
+    Method compare =
+        Comparator.class.getMethod("compare", Object.class, Object.class);
+    assertFalse(CheckPlan.of(compare).isEmpty());
+    assertSame(CheckPlan.of(compare), CheckPlan.of(compare));
+  }
+
+  @Test
+  public void testPlanOfUnrelatedLoaderIsCached() throws Exception {
+    URLClassLoader loader =
+        new URLClassLoader(new URL[] {
+            NotAnnotatedFoo.class.getProtectionDomain().getCodeSource()
+                .getLocation(),
+            CheckPlan.class.getProtectionDomain().getCodeSource()
+                .getLocation() }, null);
+    Method bar =
+        loader.loadClass(NotAnnotatedFoo.class.getName()).getMethod("bar",
+            String.class);
+    assertFalse(CheckPlan.of(bar).isEmpty());
+    assertSame(CheckPlan.of(bar), CheckPlan.of(bar));
+    loader.close();
+  }
+
+  @Test
+  public void testEmptyPlanOfObjectEquals() throws Exception {
+    assertTrue(CheckPlan.of(Foo.class.getMethod("equals", Object.class))
+        .isEmpty());
+  }
+
+  @Test
+  public void testEmptyPlanOfAcceptNull() throws Exception {
+    assertTrue(CheckPlan.of(
+        AnnotatedFoo1.class.getMethod("barByte", Byte.class)).isEmpty());
+    assertTrue(CheckPlan.of(
+        AnnotatedFoo1.class.getMethod("barDouble", Double.class)).isEmpty());
+  }
+
+  @Test
+  public void testEmptyPlanOfIgnoredArgument() throws Exception {
+    assertTrue(CheckPlan.of(
+        AnnotatedFoo1.class.getMethod("barLong", Long.class)).isEmpty());
+  }
+
+  @Test
+  public void testEmptyPlanOfPrimitives() throws Exception {
+    assertFalse(CheckPlan.of(
+        Foo.class.getConstructor(int.class, String.class)).isEmpty());
+    assertTrue(CheckPlan.of(
+        NoAutoboxingFoo.class.getDeclaredConstructor(int.class)).isEmpty());
+  }
+
+  @Test
+  public void testCheckSkipsUncheckedParameters() throws Exception {
+    CheckPlan plan =
+        CheckPlan.of(Foo.class.getConstructor(int.class, String.class));
+    plan.check(new Object[] { 1, "" });
+    try {
+      plan.check(new Object[] { 1, null });
+      fail();
+    } catch (NullPointerException ex) {
+      assertTrue(ex.getMessage().startsWith(
+          "Parameter<String> is not nullable"));
+    }
+  }
+
+  @Test
+  public void testCheckWithManyArguments() throws Exception {
+    CheckPlan plan =
+        CheckPlan.of(AnnotatedFoo5.class.getConstructor(String.class,
+            Integer.class, Double.class, Float.class));
+    plan.check(new Object[] { "", 1, 1d, 1f });
+    try {
+      plan.check(new Object[] { "", 1, 1d, null });
+      fail();
+    } catch (NullPointerException ex) {
+      assertTrue(ex.getMessage().startsWith(
+          "Parameter<Float> is not nullable"));
+    }
+  }
+
+  @Test
+  public void testSuffixIsResolvedOnce() throws Exception {
+    CheckPlan plan =
+        CheckPlan.of(Foo.class.getMethod("barInteger", Integer.class));
+    String suffix = plan.suffix();
+    assertEquals("\n\tat com.github.wnameless.nullproof"
+        + ".Foo.barInteger(Foo.java:57)", suffix);
+    assertSame(suffix, plan.suffix());
+    try {
+      plan.check((Object) null);
+      fail();
+    } catch (NullPointerException ex) {
+      assertTrue(ex.getMessage().endsWith(suffix));
+    }
+  }
+
+  @Test
+  public void testConstructorSuffix() throws Exception {
+    assertEquals("\n\tat com.github.wnameless.nullproof"
+        + ".Foo.Foo(Foo.java:48)",
+        CheckPlan.of(Foo.class.getConstructor(String.class)).suffix());
+  }
+
+  @Test
+  public void testNonEmptyPlan() throws Exception {
+    assertFalse(CheckPlan.of(
+        AnnotatedFoo5.class.getConstructor(String.class, Integer.class,
+            Double.class)).isEmpty());
+  }
+
+  private static void assertRejected(String message, CheckPlan plan) {
+    try {
+      plan.check((Object) null);
+      fail();
+    } catch (NullPointerException ex) {
+      assertTrue(ex.getMessage(), ex.getMessage().startsWith(message));
+    }
+  }
+
+  @Test
+  public void testArgumentOfSupertype() throws Exception {
+    assertRejected("Chars!",
+        CheckPlan.of(HierarchyFoo.class.getMethod("bar", String.class)));
+    assertRejected("Chars!", CheckPlan.of(HierarchyFoo.class.getMethod("bar",
+        StringBuilder.class)));
+    assertTrue(CheckPlan.of(
+        HierarchyFoo.class.getMethod("bar", Collection.class)).isEmpty());
+    assertRejected("Parameter<Integer> is not nullable",
+        CheckPlan.of(HierarchyFoo.class.getMethod("bar", Integer.class)));
+  }
+
+  @Test
+  public void testArgumentOfMostSpecificType() throws Exception {
+    assertRejected("List!",
+        CheckPlan.of(HierarchyFoo.class.getMethod("bar", List.class)));
+    assertRejected("ArrayList!",
+        CheckPlan.of(HierarchyFoo.class.getMethod("bar", ArrayList.class)));
+  }
+
+  @Test
+  public void testArgumentOfSupertypeInAspect() {
+    try {
+      new HierarchyFoo().bar((String) null);
+      fail();
+    } catch (NullPointerException ex) {
+      assertTrue(ex.getMessage().startsWith("Chars!"));
+    }
+  }
+
+}
@@ -0,0 +1,164 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class DeepCheckTest {
+
+  DeepFoo foo;
+  List<String> nullList;
+  List<String> list;
+
+  @Rule
+  public ExpectedException expectedEx = ExpectedException.none();
+
+  @Before
+  public void setUp() {
+    foo = NullProof.of(DeepFoo.class);
+    nullList = Arrays.asList("a", null);
+    list = Arrays.asList("a", "b");
+  }
+
+  @Test
+  public void testList() {
+    foo.bar(list);
+    foo.bar(new LinkedList<String>(list));
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Parameter<List> contains null");
+    foo.bar(nullList);
+  }
+
+  @Test
+  public void testLinkedList() {
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Parameter<List> contains null");
+    foo.bar(new LinkedList<String>(nullList));
+  }
+
+  @Test
+  public void testCollection() {
+    foo.bar((Collection<String>) new TreeSet<String>(list));
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Parameter<Collection> contains null");
+    foo.bar((Collection<String>) new HashSet<String>(nullList));
+  }
+
+  @Test
+  public void testMapWithNullKey() {
+    foo.bar(new TreeMap<String, String>(Collections.singletonMap("a", "b")));
+    foo.bar(new ConcurrentHashMap<String, String>(Collections.singletonMap(
+        "a", "b")));
+    Map<String, String> nullKey = new HashMap<String, String>();
+    nullKey.put(null, "a");
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Parameter<Map> contains null");
+    foo.bar(nullKey);
+  }
+
+  @Test
+  public void testMapWithNullValue() {
+    Map<String, String> nullValue = new TreeMap<String, String>();
+    nullValue.put("a", null);
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Parameter<Map> contains null");
+    foo.bar(nullValue);
+  }
+
+  @Test
+  public void testVarargs() {
+    foo.bar("a", "b");
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Parameter<String[]> contains null");
+    foo.bar("a", null, "b");
+  }
+
+  @Test
+  public void testTwoArguments() {
+    foo.bar("a", list);
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Parameter<List> contains null");
+    foo.bar("a", nullList);
+  }
+
+  @Test
+  public void testManyArguments() {
+    foo.bar("a", 1, 1d, list);
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Parameter<List> contains null");
+    foo.bar("a", 1, 1d, nullList);
+  }
+
+  @Test
+  public void testArgumentOption() {
+    foo.barShallow(nullList, nullList);
+    foo.barArgument(nullList, list);
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Oop!");
+    foo.barArgument(list, nullList);
+  }
+
+  @Test
+  public void testNullIsStillRejectedFirst() {
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Parameter<List> is not nullable");
+    foo.bar((List<String>) null);
+  }
+
+  @Test
+  public void testParallelScan() {
+    Object[] array = new Object[ElementScanner.PARALLEL_THRESHOLD + 3];
+    Arrays.fill(array, "a");
+    assertFalse(ElementScanner.containsNull(array));
+    array[array.length / 3] = null;
+    assertTrue(ElementScanner.containsNull(array));
+    array[array.length / 3] = "a";
+    array[array.length - 1] = null;
+    assertTrue(ElementScanner.containsNull(array));
+  }
+
+  @Test
+  public void testUnscannableObjects() {
+    assertFalse(ElementScanner.containsNull("a"));
+    assertFalse(ElementScanner.containsNull(new int[3]));
+    assertFalse(ElementScanner.containsNull(new ArrayList<String>()));
+  }
+
+}
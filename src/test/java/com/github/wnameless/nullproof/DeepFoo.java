@@ -0,0 +1,51 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.github.wnameless.nullproof.annotation.Argument;
+import com.github.wnameless.nullproof.annotation.RejectNull;
+
+@RejectNull(deep = true)
+public class DeepFoo {
+
+  public void bar(List<String> list) {}
+
+  public void bar(Collection<String> collection) {}
+
+  public void bar(Map<String, String> map) {}
+
+  public void bar(String... array) {}
+
+  public void bar(String s, List<String> list) {}
+
+  public void bar(String s, Integer i, Double d, List<String> list) {}
+
+  @RejectNull(@Argument(type = List.class, message = "Oop!"))
+  public void barShallow(Collection<String> c, List<String> list) {}
+
+  @RejectNull(@Argument(type = List.class, message = "Oop!", deep = true))
+  public void barArgument(Collection<String> c, List<String> list) {}
+
+}
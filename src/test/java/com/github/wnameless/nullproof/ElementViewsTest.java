@@ -0,0 +1,142 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+public class ElementViewsTest {
+
+  LazyFoo foo;
+  List<String> nullList;
+  List<String> list;
+
+  @Rule
+  public ExpectedException expectedEx = ExpectedException.none();
+
+  @Before
+  public void setUp() {
+    foo = NullProof.of(LazyFoo.class);
+    nullList = Arrays.asList("a", null);
+    list = Arrays.asList("a", "b");
+  }
+
+  @After
+  public void tearDown() {
+    NullProof.setEngine(NullProof.Engine.GUICE);
+  }
+
+  private static Iterator<String> endless() {
+    return new Iterator<String>() {
+
+      @Override
+      public boolean hasNext() {
+        return true;
+      }
+
+      @Override
+      public String next() {
+        return "a";
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+
+    };
+  }
+
+  @Test
+  public void testIterable() {
+    assertEquals(2, foo.count(list));
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Parameter<Iterable> contains null");
+    foo.count(nullList);
+  }
+
+  @Test
+  public void testIterator() {
+    assertEquals("a", foo.first(list.iterator()));
+    assertEquals("a", foo.first(nullList.iterator()));
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Parameter<Iterator> contains null");
+    foo.first(Arrays.asList((String) null).iterator());
+  }
+
+  @Test
+  public void testIteratorIsNotScannedAhead() {
+    assertEquals("a", foo.first(endless()));
+  }
+
+  @Test
+  public void testManyArguments() {
+    assertEquals(2, foo.count("a", 1, 1d, list.iterator()));
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Parameter<Iterator> contains null");
+    foo.count("a", 1, 1d, nullList.iterator());
+  }
+
+  @Test
+  public void testNullIterableIsStillRejected() {
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Parameter<Iterable> is not nullable");
+    foo.count((Iterable<String>) null);
+  }
+
+  @Test
+  public void testAspect() {
+    LazyFoo lazyFoo = new LazyFoo();
+    assertEquals(2, lazyFoo.count(list));
+    assertEquals("a", lazyFoo.first(endless()));
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Parameter<Iterable> contains null");
+    lazyFoo.count(nullList);
+  }
+
+  @Test
+  public void testAspectOnConstructor() {
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Parameter<Iterable> contains null");
+    new LazyFoo(nullList);
+  }
+
+  @Test
+  public void testJavassistEngine() {
+    NullProof.setEngine(NullProof.Engine.JAVASSIST);
+    LazyFoo lazyFoo = NullProof.of(LazyFoo.class);
+    assertEquals(2, lazyFoo.count(list));
+    assertEquals("a", lazyFoo.first(endless()));
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Parameter<Iterator> contains null");
+    lazyFoo.count("a", 1, 1d, nullList.iterator());
+  }
+
+}
@@ -0,0 +1,113 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.google.inject.ProvisionException;
+
+public class FieldCheckTest {
+
+  @Rule
+  public ExpectedException expectedEx = ExpectedException.none();
+
+  @After
+  public void tearDown() {
+    NullProof.setEngine(NullProof.Engine.GUICE);
+  }
+
+  @Test
+  public void testAspect() {
+    FieldFoo foo = new FieldFoo("a", 1);
+    assertEquals(Integer.valueOf(1), foo.getRank());
+    assertNull(foo.getNote());
+    assertEquals("a", new FieldFoo().getName());
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Field<rank> is not nullable");
+    new FieldFoo("a");
+  }
+
+  @Test
+  public void testChainedConstructors() {
+    assertEquals(Integer.valueOf(2), new FieldFoo(2).getRank());
+    assertEquals(Integer.valueOf(2), NullProof.of(FieldFoo.class, 2)
+        .getRank());
+  }
+
+  // The woven constructor rejects the field before NullProof does
+  @Test
+  public void testGuice() {
+    assertEquals(Integer.valueOf(1), NullProof.of(FieldFoo.class, "a", 1)
+        .getRank());
+    expectedEx.expect(ProvisionException.class);
+    expectedEx.expectCause(CoreMatchers
+        .<Throwable> instanceOf(NullPointerException.class));
+    NullProof.of(FieldFoo.class, "a");
+  }
+
+  @Test
+  public void testJavassistEngine() {
+    NullProof.setEngine(NullProof.Engine.JAVASSIST);
+    assertEquals(Integer.valueOf(1), NullProof.of(FieldFoo.class, "a", 1)
+        .getRank());
+    expectedEx.expect(ProvisionException.class);
+    expectedEx.expectCause(CoreMatchers
+        .<Throwable> instanceOf(NullPointerException.class));
+    NullProof.of(FieldFoo.class, "a");
+  }
+
+  @Test
+  public void testInheritedFields() throws Exception {
+    assertFalse(CheckPlan.of(LabeledFieldFoo.class.getConstructor())
+        .isEmpty());
+    assertEquals("a", new LabeledFieldFoo("a").getLabel());
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Field<label> is not nullable");
+    new LabeledFieldFoo();
+  }
+
+  @Test
+  public void testDisabledChecks() {
+    NullBlocker.setEnabled(false);
+    try {
+      assertNull(new FieldFoo("a").getRank());
+      assertNull(NullProof.of(FieldFoo.class, "a").getRank());
+    } finally {
+      NullBlocker.setEnabled(true);
+    }
+  }
+
+  @Test
+  public void testPlans() throws Exception {
+    assertFalse(CheckPlan.of(FieldFoo.class.getConstructor()).isEmpty());
+    assertTrue(CheckPlan.of(FieldFoo.class.getMethod("getName")).isEmpty());
+  }
+
+}
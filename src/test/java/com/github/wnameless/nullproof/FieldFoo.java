@@ -0,0 +1,71 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import com.github.wnameless.nullproof.annotation.AcceptNull;
+import com.github.wnameless.nullproof.annotation.RejectNull;
+
+@RejectNull(fields = true)
+public class FieldFoo {
+
+  static String shared;
+
+  private final String name;
+  private Integer rank;
+  @AcceptNull
+  private String note;
+  private int age;
+
+  public FieldFoo() {
+    this("a", 1);
+  }
+
+  public FieldFoo(String name) {
+    this.name = name;
+  }
+
+  public FieldFoo(Integer rank) {
+    this("b");
+    this.rank = rank;
+  }
+
+  public FieldFoo(String name, Integer rank) {
+    this.name = name;
+    this.rank = rank;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Integer getRank() {
+    return rank;
+  }
+
+  public String getNote() {
+    return note;
+  }
+
+  public int getAge() {
+    return age;
+  }
+
+}
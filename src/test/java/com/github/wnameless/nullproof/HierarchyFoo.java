@@ -0,0 +1,48 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import com.github.wnameless.nullproof.annotation.Argument;
+import com.github.wnameless.nullproof.annotation.RejectNull;
+
+@RejectNull({ @Argument(type = CharSequence.class, message = "Chars!"),
+    @Argument(type = Collection.class, ignore = true),
+    @Argument(type = List.class, message = "List!"),
+    @Argument(type = ArrayList.class, message = "ArrayList!") })
+public class HierarchyFoo {
+
+  public void bar(String s) {}
+
+  public void bar(StringBuilder sb) {}
+
+  public void bar(Collection<String> c) {}
+
+  public void bar(List<String> l) {}
+
+  public void bar(ArrayList<String> al) {}
+
+  public void bar(Integer i) {}
+
+}
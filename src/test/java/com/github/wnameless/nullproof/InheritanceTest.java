@@ -0,0 +1,91 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import static org.junit.Assert.assertSame;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.github.wnameless.nullproof.packaged.PackagedFoo;
+
+public class InheritanceTest {
+
+  @Rule
+  public ExpectedException expectedEx = ExpectedException.none();
+
+  @Test
+  public void testSuperclassAnnotation() {
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Chars!");
+    NullProof.of(InheritingFoo.class).baz(null);
+  }
+
+  @Test
+  public void testSuperclassAnnotationInAspect() {
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Chars!");
+    new InheritingFoo().baz(null);
+  }
+
+  @Test
+  public void testInterfaceMethodAnnotation() {
+    ContractFooImpl foo = NullProof.of(ContractFooImpl.class);
+    foo.accept(null);
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Contract!");
+    foo.reject(null);
+  }
+
+  @Test
+  public void testInterfaceParameterAnnotation() {
+    NullProof.wrap(new ContractFooImpl(), ContractFoo.class).put("k", null);
+    ContractFooImpl foo = NullProof.of(ContractFooImpl.class);
+    foo.put("k", null);
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Parameter<String> is not nullable");
+    foo.put(null, "v");
+  }
+
+  @Test
+  public void testInterfaceWithoutMethodAnnotation() {
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Parameter<String> is not nullable");
+    NullProof.of(ContractFooImpl.class).other(null);
+  }
+
+  @Test
+  public void testPackageAnnotation() {
+    new PackagedFoo().bar(null);
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Package!");
+    NullProof.of(PackagedFoo.class).bar(null);
+  }
+
+  @Test
+  public void testResolutionIsCachedPerMember() throws Exception {
+    assertSame(
+        CheckPlan.of(InheritingFoo.class.getMethod("baz", String.class)),
+        CheckPlan.of(InheritingFoo.class.getMethod("baz", String.class)));
+  }
+
+}
@@ -0,0 +1,187 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.inject.CreationException;
+import com.google.inject.TypeLiteral;
+
+public class JavassistEngineTest {
+
+  @Before
+  public void setUp() {
+    NullProof.setEngine(NullProof.Engine.JAVASSIST);
+  }
+
+  @After
+  public void tearDown() {
+    NullProof.setEngine(NullProof.Engine.GUICE);
+  }
+
+  @Test
+  public void testGeneratedSubclass() {
+    ProxiedFoo foo1 = NullProof.of(ProxiedFoo.class);
+    ProxiedFoo foo2 = NullProof.of(ProxiedFoo.class, "bar");
+    assertSame(foo1.getClass(), foo2.getClass());
+    assertSame(ProxiedFoo.class, foo1.getClass().getSuperclass());
+    assertTrue(foo1.getClass().getName().contains("$$NullProof$$"));
+    assertSame(ProxiedFoo.class.getClassLoader(), foo1.getClass()
+        .getClassLoader());
+  }
+
+  @Test
+  public void testEngineIsPartOfConstructorResolution() {
+    NullProof.setEngine(NullProof.Engine.GUICE);
+    Class<?> guiced = NullProof.of(ProxiedFoo.class, "bar").getClass();
+    NullProof.setEngine(NullProof.Engine.JAVASSIST);
+    Class<?> generated = NullProof.of(ProxiedFoo.class, "bar").getClass();
+    assertFalse(guiced.getName().contains("$$NullProof$$"));
+    assertTrue(generated.getName().contains("$$NullProof$$"));
+  }
+
+  @Test
+  public void testRejectNull() {
+    ProxiedFoo foo = NullProof.of(ProxiedFoo.class, "bar");
+    assertEquals("foobar", foo.name("foo"));
+    try {
+      foo.name(null);
+      fail();
+    } catch (NullPointerException ex) {
+      assertTrue(ex.getMessage().startsWith(
+          "Parameter<String> is not nullable"));
+    }
+  }
+
+  @Test
+  public void testArrayParameter() {
+    ProxiedFoo foo = NullProof.of(ProxiedFoo.class);
+    assertEquals(2, foo.length(new String[] { "a", "b" }));
+    try {
+      foo.length(null);
+      fail();
+    } catch (NullPointerException ex) {
+      assertTrue(ex.getMessage().startsWith(
+          "Parameter<String[]> is not nullable"));
+    }
+  }
+
+  @Test
+  public void testManyParameters() throws Exception {
+    ProxiedFoo foo = NullProof.of(ProxiedFoo.class);
+    assertEquals("a12b", foo.join("a", 1, 2, "b"));
+    try {
+      foo.join("a", 1, null, "b");
+      fail();
+    } catch (NullPointerException ex) {
+      assertTrue(ex.getMessage().startsWith(
+          "Parameter<Integer> is not nullable"));
+    }
+  }
+
+  @Test
+  public void testPassingCallsCountTowardsGlobalSampling() {
+    ProxiedFoo foo = NullProof.of(ProxiedFoo.class, "bar");
+    NullBlocker.setSampling(2);
+    try {
+      for (int i = 0; i < 4; i++) {
+        foo.name("foo");
+        foo.name(null);
+      }
+    } finally {
+      NullBlocker.setSampling(1);
+    }
+  }
+
+  @Test
+  public void testUncheckedMethodsAreNotOverridden() throws Exception {
+    Class<?> proxy = NullProof.of(ProxiedFoo.class).getClass();
+    assertEquals(ProxiedFoo.class, proxy.getMethod("twice", int.class)
+        .getDeclaringClass());
+    assertEquals(ProxiedFoo.class, proxy.getMethod("echo", String.class)
+        .getDeclaringClass());
+    assertEquals(ProxiedFoo.class, proxy.getMethod("finalEcho", String.class)
+        .getDeclaringClass());
+    assertEquals(Object.class, proxy.getMethod("equals", Object.class)
+        .getDeclaringClass());
+    assertFalse(ProxiedFoo.class.equals(proxy.getMethod("length",
+        String[].class).getDeclaringClass()));
+  }
+
+  @Test
+  public void testAcceptNull() {
+    ProxiedFoo foo = NullProof.of(ProxiedFoo.class);
+    assertNull(foo.echo(null));
+    assertNull(foo.finalEcho(null));
+    assertEquals(4, foo.twice(2));
+  }
+
+  @Test
+  public void testAnnotationSemantics() {
+    AnnotatedFoo1 foo = NullProof.of(AnnotatedFoo1.class);
+    foo.barDouble(null);
+    foo.barByte(null);
+    foo.barInteger(null);
+    foo.barLong(null);
+    try {
+      foo.barString(null);
+      fail();
+    } catch (NullPointerException ex) {
+      assertTrue(ex.getMessage().startsWith("Oop! at $TYPE"));
+    }
+  }
+
+  @Test
+  public void testInheritedMethods() {
+    NotAnnotatedFoo foo = NullProof.of(NotAnnotatedFoo.class);
+    try {
+      foo.bar(null);
+      fail();
+    } catch (NullPointerException ex) {}
+  }
+
+  @Test
+  public void testFactory() {
+    NullProof.Factory<ProxiedFoo> factory =
+        NullProof.factory(ProxiedFoo.class, TypeLiteral.get(String.class));
+    assertEquals("abar", factory.create("bar").name("a"));
+  }
+
+  @Test(expected = CreationException.class)
+  public void testNullConstructorArgument() {
+    NullProof.of(ProxiedFoo.class, (Object) null);
+  }
+
+  @Test(expected = CreationException.class)
+  public void testFinalClass() {
+    NullProof.of(String.class);
+  }
+
+}
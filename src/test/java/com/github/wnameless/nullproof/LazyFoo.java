@@ -0,0 +1,58 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import java.util.Iterator;
+
+import com.github.wnameless.nullproof.annotation.RejectNull;
+
+@RejectNull(deep = true)
+public class LazyFoo {
+
+  public LazyFoo() {}
+
+  public LazyFoo(Iterable<String> iterable) {
+    count(iterable);
+  }
+
+  public int count(Iterable<String> iterable) {
+    int count = 0;
+    for (String s : iterable) {
+      s.length();
+      count++;
+    }
+    return count;
+  }
+
+  public String first(Iterator<String> iterator) {
+    return iterator.next();
+  }
+
+  public int count(String s, Integer i, Double d, Iterator<String> iterator) {
+    int count = 0;
+    while (iterator.hasNext()) {
+      iterator.next().length();
+      count++;
+    }
+    return count;
+  }
+
+}
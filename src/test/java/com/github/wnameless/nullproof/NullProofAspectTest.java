@@ -224,6 +224,46 @@ public class NullProofAspectTest {
     new AnnotatedFoo5("", 1, null);
   }
 
+  @Test
+  public void testRejectNullWithManyArguments() {
+    expectedEx.expect(NullPointerException.class);
+    expectedEx.expectMessage("Parameter<Float> is not nullable");
+    new AnnotatedFoo5("", 1, 1d, null);
+  }
+
+  @Test
+  public void testDisabledAdvice() {
+    NullBlocker.setEnabled(false);
+    try {
+      AnnotatedFoo5 foo5 = new AnnotatedFoo5(null, null, null, null);
+      foo5.bar(null);
+      foo5.bar(null, null, null);
+    } finally {
+      NullBlocker.setEnabled(true);
+    }
+    try {
+      new AnnotatedFoo5(null, null, null);
+      fail();
+    } catch (NullPointerException ex) {}
+  }
+
+  @Test
+  public void testRejectNullWithFewArguments() {
+    AnnotatedFoo5 foo5 = new AnnotatedFoo5("", 1, 1d);
+    try {
+      foo5.bar(null);
+      fail();
+    } catch (NullPointerException ex) {}
+    try {
+      foo5.bar("", null);
+      fail();
+    } catch (NullPointerException ex) {}
+    try {
+      foo5.bar("", 1, null);
+      fail();
+    } catch (NullPointerException ex) {}
+  }
+
   @Test
   public void testNotFoundInClassAcceptNullOnConstructor() {
     expectedEx.expect(NullPointerException.class);
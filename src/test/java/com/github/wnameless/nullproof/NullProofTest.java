@@ -20,6 +20,9 @@
  */
 package com.github.wnameless.nullproof;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -88,6 +91,46 @@ public class NullProofTest {
     NullProof.of(Foo.class, new Date());
   }
 
+  @Test
+  public void testRepeatedCreationWithDifferentConstructors() {
+    for (int i = 0; i < 3; i++) {
+      Foo foo1 = NullProof.of(Foo.class);
+      Foo foo2 = NullProof.of(Foo.class, "");
+      Foo foo3 = NullProof.of(Foo.class, 1, "");
+      for (Foo f : new Foo[] { foo1, foo2, foo3 }) {
+        try {
+          f.barInteger(null);
+          fail();
+        } catch (NullPointerException ex) {}
+      }
+    }
+  }
+
+  @Test
+  public void testConstructorResolutionIsCached() {
+    assertSame(NullProof.resolve(Foo.class, new Object[] { "a" }),
+        NullProof.resolve(Foo.class, new Object[] { "b" }));
+    assertSame(NullProof.resolve(Foo.class, new Object[] { 1, "a" }),
+        NullProof.resolve(Foo.class, new Object[] { 2, "b" }));
+    assertNotSame(NullProof.resolve(Foo.class, new Object[] { "a" }),
+        NullProof.resolve(Foo.class, new Object[] { 1, "a" }));
+  }
+
+  @Test
+  public void testSingletonIsNotReusedAcrossCalls() {
+    SingletonFoo foo1 = NullProof.of(SingletonFoo.class, "a");
+    SingletonFoo foo2 = NullProof.of(SingletonFoo.class, "b");
+    assertNotSame(foo1, foo2);
+    assertEquals("b", foo2.name(""));
+  }
+
+  @Test
+  public void testJustInTimeBindingsDoNotLeakAcrossCalls() {
+    NullProof.of(DependentFoo.class);
+    DependentFoo.Part part = new DependentFoo.Part();
+    assertSame(part, NullProof.of(DependentFoo.class, part).part(""));
+  }
+
   @Test
   public void testNullProofConstructor() {
     new NullProof.Constructor<Foo>(Foo.class)
@@ -95,6 +138,42 @@ public class NullProofTest {
         .addArgument(new HashMap<String, Integer>()).create();
   }
 
+  @Test
+  public void testFactory() {
+    NullProof.Factory<Foo> factory =
+        NullProof.factory(Foo.class, TypeLiteral.get(String.class));
+    Foo foo1 = factory.create("a");
+    Foo foo2 = factory.create("b");
+    assertNotSame(foo1, foo2);
+    assertSame(foo1.getClass(), foo2.getClass());
+    try {
+      foo2.barInteger(null);
+      fail();
+    } catch (NullPointerException ex) {}
+  }
+
+  @Test
+  public void testFactoryWithGenericType() {
+    NullProof.factory(Foo.class, new TypeLiteral<Map<String, Integer>>() {})
+        .create(new HashMap<String, Integer>());
+  }
+
+  @Test
+  public void testFactoryWithoutArguments() {
+    assertTrue(NullProof.factory(Foo.class).create() instanceof Foo);
+  }
+
+  @Test(expected = CreationException.class)
+  public void testFactoryWithWrongArgumentNumber() {
+    NullProof.factory(Foo.class, TypeLiteral.get(String.class)).create();
+  }
+
+  @Test(expected = CreationException.class)
+  public void testFactoryWithNullArgument() {
+    NullProof.factory(Foo.class, TypeLiteral.get(String.class)).create(
+        (Object) null);
+  }
+
   @Test(expected = CreationException.class)
   public void tesetNullObjectCanNotBind1() {
     new NullProof.Constructor<Foo>(Foo.class)
@@ -118,6 +197,50 @@ public class NullProofTest {
     }
   }
 
+  @Test
+  public void testStacklessException() {
+    NullBlocker.setStackTraceEnabled(false);
+    try {
+      NullProof.of(Foo.class).barInteger(null);
+      fail();
+    } catch (NullPointerException ex) {
+      assertTrue(ex.getMessage().startsWith(
+          "Parameter<Integer> is not nullable\n\tat "
+              + "com.github.wnameless.nullproof.Foo.barInteger(Foo.java:"));
+      assertEquals(1, ex.getStackTrace().length);
+      assertEquals("barInteger", ex.getStackTrace()[0].getMethodName());
+      assertEquals(Foo.class.getName(), ex.getStackTrace()[0].getClassName());
+    } finally {
+      NullBlocker.setStackTraceEnabled(true);
+    }
+  }
+
+  @Test
+  public void testDisabledChecks() {
+    Foo foo = NullProof.of(Foo.class);
+    NullBlocker.setEnabled(false);
+    try {
+      foo.barInteger(null);
+      foo.equals(null, null);
+    } finally {
+      NullBlocker.setEnabled(true);
+    }
+    try {
+      foo.barInteger(null);
+      fail();
+    } catch (NullPointerException ex) {}
+  }
+
+  @Test
+  public void testExceptionWithStackTrace() {
+    try {
+      NullProof.of(Foo.class).barInteger(null);
+      fail();
+    } catch (NullPointerException ex) {
+      assertTrue(ex.getStackTrace().length > 1);
+    }
+  }
+
   @Test
   public void testEqulasWithNull() {
     foo.equals((Object) null);
@@ -268,6 +391,16 @@ public class NullProofTest {
     foo = NullProof.of(Foo.class, Character.valueOf('a'), "");
   }
 
+  @Test
+  public void testRepeatedPrimitiveSelection() {
+    for (int i = 0; i < 3; i++) {
+      assertTrue(NullProof.of(NoPrimitiveFoo.class, i)
+          instanceof NoPrimitiveFoo);
+      assertTrue(NullProof.of(NoAutoboxingFoo.class, i)
+          instanceof NoAutoboxingFoo);
+    }
+  }
+
   @Test
   public void testNoAutoboxing_byte() {
     NullProof.of(NoAutoboxingFoo.class, (byte) 1);
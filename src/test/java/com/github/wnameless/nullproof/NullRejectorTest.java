@@ -0,0 +1,82 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import com.github.wnameless.nullproof.NullRejector.NullableMethods;
+
+public class NullRejectorTest {
+
+  private final NullableMethods matcher = new NullableMethods();
+
+  @Test
+  public void testMatchesMethodsRejectingNull() throws Exception {
+    assertTrue(matcher.matches(Foo.class.getMethod("barString", String.class)));
+    assertTrue(matcher.matches(Foo.class.getMethod("equals", Integer.class,
+        Double.class)));
+  }
+
+  @Test
+  public void testSkipsMethodsWithoutReferenceParameters() throws Exception {
+    assertFalse(matcher.matches(Foo.class.getMethod("hashCode")));
+    assertFalse(matcher.matches(Foo.class.getMethod("toString")));
+    assertFalse(matcher.matches(Object.class.getMethod("wait", long.class)));
+  }
+
+  @Test
+  public void testSkipsMethodsAcceptingNull() throws Exception {
+    assertFalse(matcher.matches(Foo.class.getMethod("equals", Object.class)));
+    assertFalse(matcher.matches(AnnotatedFoo1.class.getMethod("barByte",
+        Byte.class)));
+    assertFalse(matcher.matches(AnnotatedFoo1.class.getMethod("barDouble",
+        Double.class)));
+    assertFalse(matcher.matches(AnnotatedFoo1.class.getMethod("barLong",
+        Long.class)));
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testMatchedMethodsAreStillIntercepted() {
+    NullProof.of(Foo.class).barString(null);
+  }
+
+  // Guice only overrides the intercepted methods in its enhanced subclass
+  @Test
+  public void testSkippedMethodsAreDispatchedDirectly() throws Exception {
+    Class<?> enhanced = NullProof.of(AnnotatedFoo1.class).getClass();
+    assertNotSame(AnnotatedFoo1.class, enhanced);
+    enhanced.getDeclaredMethod("barFloat", Float.class);
+    try {
+      enhanced.getDeclaredMethod("barDouble", Double.class);
+      fail();
+    } catch (NoSuchMethodException e) {}
+    try {
+      enhanced.getDeclaredMethod("barByte", Byte.class);
+      fail();
+    } catch (NoSuchMethodException e) {}
+  }
+
+}
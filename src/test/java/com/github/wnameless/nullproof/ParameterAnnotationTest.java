@@ -0,0 +1,117 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import static com.github.wnameless.nullproof.Rejections.assertRejected;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ParameterAnnotationTest {
+
+  @After
+  public void tearDown() {
+    NullProof.setEngine(NullProof.Engine.GUICE);
+  }
+
+  private static void assertParameters(final ParameterFoo foo) {
+    final List<String> list = Arrays.asList("a");
+    final List<String> nullList = Arrays.asList("a", null);
+
+    foo.bar("a", (String) null);
+    foo.bar(1, (Integer) null);
+    foo.bar("a", null, "c", "d");
+    foo.bar(list, nullList);
+    assertRejected("Parameter<String> is not nullable", new Runnable() {
+
+      @Override
+      public void run() {
+        foo.bar(null, "b");
+      }
+
+    });
+    assertRejected("Parameter<Integer> is not nullable", new Runnable() {
+
+      @Override
+      public void run() {
+        foo.bar(null, 2);
+      }
+
+    });
+    assertRejected("Parameter<String> is not nullable", new Runnable() {
+
+      @Override
+      public void run() {
+        foo.bar("a", "b", "c", null);
+      }
+
+    });
+    assertRejected("Parameter<List> contains null", new Runnable() {
+
+      @Override
+      public void run() {
+        foo.bar(nullList, list);
+      }
+
+    });
+    assertRejected("Parameter<List> is not nullable", new Runnable() {
+
+      @Override
+      public void run() {
+        foo.bar(list, (List<String>) null);
+      }
+
+    });
+  }
+
+  @Test
+  public void testGuice() {
+    assertParameters(NullProof.of(ParameterFoo.class));
+  }
+
+  @Test
+  public void testAspect() {
+    assertParameters(new ParameterFoo());
+  }
+
+  @Test
+  public void testJavassistEngine() {
+    NullProof.setEngine(NullProof.Engine.JAVASSIST);
+    assertParameters(NullProof.of(ParameterFoo.class));
+  }
+
+  @Test
+  public void testConstructor() {
+    new ParameterFoo(null, "b");
+    assertRejected("Parameter<String> is not nullable", new Runnable() {
+
+      @Override
+      public void run() {
+        new ParameterFoo("a", null);
+      }
+
+    });
+  }
+
+}
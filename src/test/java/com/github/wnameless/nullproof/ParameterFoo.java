@@ -0,0 +1,44 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import java.util.List;
+
+import com.github.wnameless.nullproof.annotation.AcceptNull;
+import com.github.wnameless.nullproof.annotation.Argument;
+import com.github.wnameless.nullproof.annotation.RejectNull;
+
+@RejectNull(@Argument(type = Integer.class, ignore = true))
+public class ParameterFoo {
+
+  public ParameterFoo() {}
+
+  public ParameterFoo(@AcceptNull String s1, String s2) {}
+
+  public void bar(String s1, @AcceptNull String s2) {}
+
+  public void bar(@RejectNull Integer i1, Integer i2) {}
+
+  public void bar(String s1, @AcceptNull String s2, String s3, String s4) {}
+
+  public void bar(@RejectNull(deep = true) List<String> l1, List<String> l2) {}
+
+}
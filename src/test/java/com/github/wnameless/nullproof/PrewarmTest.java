@@ -0,0 +1,147 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.github.wnameless.nullproof.packaged.PackagedFoo;
+
+public class PrewarmTest {
+
+  @After
+  public void tearDown() {
+    NullProof.setEngine(NullProof.Engine.GUICE);
+  }
+
+  @Test
+  public void testPrewarm() {
+    NullProof.prewarm(Foo.class, AnnotatedFoo5.class, FieldFoo.class);
+    try {
+      NullProof.of(Foo.class).barString(null);
+      fail();
+    } catch (NullPointerException ex) {
+      assertTrue(ex.getMessage().startsWith(
+          "Parameter<String> is not nullable"));
+    }
+  }
+
+  @Test
+  public void testPrewarmSkipsUninstantiableClasses() {
+    NullProof.prewarm(FooInterface.class, ContractFoo.class,
+        NoAutoboxingFoo.class, String.class);
+  }
+
+  @Test
+  public void testPrewarmLogsSkippedConstructors() {
+    final List<LogRecord> records = new ArrayList<LogRecord>();
+    Handler handler = new Handler() {
+
+      @Override
+      public void publish(LogRecord record) {
+        records.add(record);
+      }
+
+      @Override
+      public void flush() {}
+
+      @Override
+      public void close() {}
+
+    };
+    Logger logger = Logger.getLogger(NullBlocker.class.getName());
+    Level level = logger.getLevel();
+    logger.setLevel(Level.FINE);
+    logger.addHandler(handler);
+    try {
+      NullProof.prewarm(ParameterFoo.class);
+    } finally {
+      logger.removeHandler(handler);
+      logger.setLevel(level);
+    }
+    assertFalse(records.isEmpty());
+    assertTrue(records.get(0).getMessage().contains(
+        ParameterFoo.class.getName()));
+    assertTrue(records.get(0).getThrown() != null);
+  }
+
+  @Test
+  public void testPrewarmByJavassistEngine() {
+    NullProof.setEngine(NullProof.Engine.JAVASSIST);
+    NullProof.prewarm(ProxiedFoo.class);
+    assertTrue(NullProof.of(ProxiedFoo.class).getClass() != ProxiedFoo.class);
+  }
+
+  @Test
+  public void testPrewarmByExecutor() {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      NullProof.prewarm(executor, Foo.class, AnnotatedFoo1.class,
+          AnnotatedFoo2.class, DeepFoo.class, LazyFoo.class);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testPrewarmPackage() {
+    assertEquals(Arrays.<Class<?>> asList(PackagedFoo.class),
+        NullProof.prewarm("com.github.wnameless.nullproof.packaged"));
+  }
+
+  @Test
+  public void testPrewarmPackageFindsInheritedAnnotations() {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Class<?>> classes =
+          NullProof.prewarm("com.github.wnameless.nullproof", executor);
+      assertTrue(classes.contains(Foo.class));
+      assertTrue(classes.contains(InheritingFoo.class));
+      assertTrue(classes.contains(PackagedFoo.class));
+      assertFalse(classes.contains(NotAnnotatedFoo.class));
+      assertFalse(classes.contains(NullProof.class));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testPrewarmUnknownPackage() {
+    assertTrue(NullProof.prewarm("com.github.wnameless.nullproof.none")
+        .isEmpty());
+  }
+
+}
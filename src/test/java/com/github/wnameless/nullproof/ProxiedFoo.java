@@ -0,0 +1,69 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import java.io.IOException;
+
+import com.github.wnameless.nullproof.annotation.AcceptNull;
+
+public class ProxiedFoo {
+
+  private final String name;
+
+  public ProxiedFoo() {
+    this("foo");
+  }
+
+  ProxiedFoo(String name) {
+    this.name = name;
+  }
+
+  String name(String prefix) {
+    return prefix + name;
+  }
+
+  public int length(String[] array) {
+    return array.length;
+  }
+
+  public String join(String s1, int i1, Integer i2, String s2)
+      throws IOException {
+    return s1 + i1 + i2 + s2;
+  }
+
+  public boolean same(String s1, Integer i1, Integer i2, String s2) {
+    return s1 == s2 && i1 == i2;
+  }
+
+  public int twice(int i) {
+    return i * 2;
+  }
+
+  public final String finalEcho(String s) {
+    return s;
+  }
+
+  @AcceptNull
+  public String echo(String s) {
+    return s;
+  }
+
+}
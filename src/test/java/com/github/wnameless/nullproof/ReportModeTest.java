@@ -0,0 +1,248 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Constructor;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReportModeTest {
+
+  private final BlockingQueue<NullViolation> violations =
+      new LinkedBlockingQueue<NullViolation>();
+
+  @Before
+  public void setUp() {
+    NullBlocker.setReporter(new NullReporter() {
+
+      @Override
+      public void report(NullViolation violation) {
+        violations.add(violation);
+      }
+
+    });
+    NullBlocker.setReportOnly(true);
+  }
+
+  @After
+  public void tearDown() {
+    NullBlocker.setReportOnly(false);
+    NullBlocker.setReporter(new LoggingReporter());
+  }
+
+  private NullViolation next() throws InterruptedException {
+    NullViolation violation = violations.poll(10, TimeUnit.SECONDS);
+    assertTrue(violation != null);
+    return violation;
+  }
+
+  @Test
+  public void testReturnValueIsReported() throws Exception {
+    new ReturningFoo().bar();
+
+    NullViolation violation = next();
+    assertEquals(ReturningFoo.class.getMethod("bar"), violation.getMember());
+    assertEquals(-1, violation.getParameterIndex());
+    assertTrue(violation.getMessage().startsWith(
+        "Return<String> is not nullable"));
+  }
+
+  @Test
+  public void testFieldsAreReportedByGuiceAndAspect() throws Exception {
+    FieldFoo foo = NullProof.of(FieldFoo.class, "a");
+    assertEquals("a", foo.getName());
+
+    for (int i = 0; i < 2; i++) {
+      NullViolation violation = next();
+      assertEquals(FieldFoo.class.getConstructor(String.class),
+          violation.getMember());
+      assertEquals(-1, violation.getParameterIndex());
+      assertTrue(violation.getMessage().startsWith(
+          "Field<rank> is not nullable"));
+    }
+  }
+
+  @Test
+  public void testGuiceReportsAndProceeds() throws Exception {
+    long start = System.currentTimeMillis();
+    NullProof.of(NotAnnotatedFoo.class).bar(null);
+
+    NullViolation violation = next();
+    assertEquals(NotAnnotatedFoo.class.getMethod("bar", String.class),
+        violation.getMember());
+    assertEquals(0, violation.getParameterIndex());
+    assertTrue(violation.getMessage().startsWith(
+        "Parameter<String> is not nullable"));
+    assertEquals(Thread.currentThread().getName(), violation.getThreadName());
+    assertTrue(violation.getTimestamp() >= start);
+  }
+
+  @Test
+  public void testThreadNameIsCapturedWhenRecorded() throws Exception {
+    final CountDownLatch blocked = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    NullBlocker.setReporter(new NullReporter() {
+
+      @Override
+      public void report(NullViolation violation) {
+        blocked.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        violations.add(violation);
+      }
+
+    });
+    NotAnnotatedFoo foo = NullProof.of(NotAnnotatedFoo.class);
+    foo.bar(null);
+    assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+    String name = Thread.currentThread().getName();
+    try {
+      Thread.currentThread().setName("recording");
+      foo.bar(null);
+    } finally {
+      Thread.currentThread().setName(name);
+      release.countDown();
+    }
+    assertEquals(name, next().getThreadName());
+    assertEquals("recording", next().getThreadName());
+  }
+
+  @Test
+  public void testAspectReportsEveryNullArgument() throws Exception {
+    new AnnotatedFoo5(null, 1, null);
+
+    assertEquals(0, next().getParameterIndex());
+    assertEquals(2, next().getParameterIndex());
+  }
+
+  @Test
+  public void testAspectReportsEveryNullArgumentOfManyArguments()
+      throws Exception {
+    new AnnotatedFoo5("", null, 1d, null);
+
+    assertEquals(1, next().getParameterIndex());
+    assertEquals(3, next().getParameterIndex());
+  }
+
+  @Test
+  public void testReporterSurvivesErrors() throws Exception {
+    NullBlocker.setReporter(new NullReporter() {
+
+      private boolean failed;
+
+      @Override
+      public void report(NullViolation violation) {
+        if (!failed) {
+          failed = true;
+          throw new AssertionError();
+        }
+        violations.add(violation);
+      }
+
+    });
+    NotAnnotatedFoo foo = NullProof.of(NotAnnotatedFoo.class);
+    for (int i = 0; i < 5; i++) {
+      foo.bar(null);
+    }
+
+    for (int i = 0; i < 4; i++) {
+      assertEquals(0, next().getParameterIndex());
+    }
+  }
+
+  @Test
+  public void testReporterThreadHasNoContextClassLoader() throws Exception {
+    final BlockingQueue<Thread> threads = new LinkedBlockingQueue<Thread>();
+    NullBlocker.setReporter(new NullReporter() {
+
+      @Override
+      public void report(NullViolation violation) {
+        threads.add(Thread.currentThread());
+      }
+
+    });
+    NullProof.of(NotAnnotatedFoo.class).bar(null);
+
+    Thread reporter = threads.poll(10, TimeUnit.SECONDS);
+    assertEquals("nullproof-reporter", reporter.getName());
+    assertNull(reporter.getContextClassLoader());
+  }
+
+  @Test
+  public void testFullBufferDropsViolations() throws Exception {
+    final CountDownLatch blocked = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    NullBlocker.setReporter(new NullReporter() {
+
+      @Override
+      public void report(NullViolation violation) {
+        blocked.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+    });
+    NotAnnotatedFoo foo = NullProof.of(NotAnnotatedFoo.class);
+    foo.bar(null);
+    assertTrue(blocked.await(10, TimeUnit.SECONDS));
+
+    long dropped = ViolationRing.droppedCount();
+    for (int i = 0; i < ViolationRing.CAPACITY + 10; i++) {
+      foo.bar(null);
+    }
+    assertTrue(ViolationRing.droppedCount() - dropped >= 10);
+
+    setUp();
+    release.countDown();
+    long deadline = System.currentTimeMillis() + 10000;
+    boolean drained = false;
+    while (!drained) {
+      if (System.currentTimeMillis() > deadline)
+        fail("The buffer is not drained.");
+      new AnnotatedFoo5(null, 1, 1d);
+      NullViolation violation;
+      while ((violation =
+          violations.poll(100, TimeUnit.MILLISECONDS)) != null) {
+        if (violation.getMember() instanceof Constructor)
+          drained = true;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,138 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import static com.github.wnameless.nullproof.Rejections.assertRejected;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ReturnCheckTest {
+
+  @After
+  public void tearDown() {
+    NullProof.setEngine(NullProof.Engine.GUICE);
+  }
+
+  private static void assertReturnsRejected(final ReturningFoo foo) {
+    assertEquals("a", foo.bar("a"));
+    assertEquals(0, foo.primitive());
+    foo.nothing();
+    assertNull(foo.accepted());
+    assertRejected("Return<String> is not nullable", new Runnable() {
+
+      @Override
+      public void run() {
+        foo.bar();
+      }
+
+    });
+    assertRejected("Return<String> is not nullable", new Runnable() {
+
+      @Override
+      public void run() {
+        foo.bar("");
+      }
+
+    });
+    assertRejected("Return<String> is not nullable", new Runnable() {
+
+      @Override
+      public void run() {
+        foo.bar("a", 1, 1d, 1L);
+      }
+
+    });
+    assertRejected("Return<String[]> is not nullable", new Runnable() {
+
+      @Override
+      public void run() {
+        foo.array();
+      }
+
+    });
+  }
+
+  @Test
+  public void testGuice() {
+    assertReturnsRejected(NullProof.of(ReturningFoo.class));
+  }
+
+  @Test
+  public void testAspect() {
+    assertReturnsRejected(new ReturningFoo());
+  }
+
+  @Test
+  public void testJavassistEngine() {
+    NullProof.setEngine(NullProof.Engine.JAVASSIST);
+    assertReturnsRejected(NullProof.of(ReturningFoo.class));
+  }
+
+  @Test
+  public void testMethodAnnotation() {
+    for (final ReturningBar bar : new ReturningBar[] {
+        NullProof.of(ReturningBar.class), new ReturningBar() }) {
+      assertEquals("a", bar.checked("a"));
+      assertNull(bar.unchecked("a"));
+      assertRejected("Return<String> is not nullable", new Runnable() {
+
+        @Override
+        public void run() {
+          bar.checked("");
+        }
+
+      });
+    }
+  }
+
+  @Test
+  public void testDisabledChecks() {
+    NullBlocker.setEnabled(false);
+    try {
+      assertNull(NullProof.of(ReturningFoo.class).bar());
+      assertNull(new ReturningFoo().bar());
+    } finally {
+      NullBlocker.setEnabled(true);
+    }
+  }
+
+  @Test
+  public void testPlans() throws Exception {
+    assertFalse(CheckPlan.of(ReturningFoo.class.getMethod("bar")).isEmpty());
+    assertTrue(CheckPlan.of(ReturningFoo.class.getMethod("bar"))
+        .checksReturn());
+    assertFalse(CheckPlan.of(ReturningFoo.class.getMethod("primitive"))
+        .checksReturn());
+    assertFalse(CheckPlan.of(ReturningFoo.class.getMethod("nothing"))
+        .checksReturn());
+    assertTrue(CheckPlan.of(ReturningFoo.class.getMethod("accepted"))
+        .isEmpty());
+    assertFalse(CheckPlan.of(
+        ReturningBar.class.getMethod("unchecked", String.class))
+        .checksReturn());
+  }
+
+}
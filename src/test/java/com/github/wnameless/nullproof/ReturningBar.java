@@ -0,0 +1,37 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import com.github.wnameless.nullproof.annotation.RejectNull;
+
+@RejectNull
+public class ReturningBar {
+
+  @RejectNull(returns = true)
+  public String checked(String s) {
+    return s.isEmpty() ? null : s;
+  }
+
+  public String unchecked(String s) {
+    return null;
+  }
+
+}
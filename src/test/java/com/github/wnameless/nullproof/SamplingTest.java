@@ -0,0 +1,143 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class SamplingTest {
+
+  private final SampledFoo foo = new SampledFoo();
+
+  @After
+  public void tearDown() {
+    NullBlocker.setSampling(1);
+  }
+
+  private static int rejections(Runnable call, int times) {
+    int count = 0;
+    for (int i = 0; i < times; i++) {
+      try {
+        call.run();
+      } catch (NullPointerException ex) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Test
+  public void testClassSampling() {
+    assertEquals(3, rejections(new Runnable() {
+
+      @Override
+      public void run() {
+        foo.bar((String) null);
+      }
+
+    }, 9));
+  }
+
+  @Test
+  public void testMethodSampling() {
+    assertEquals(4, rejections(new Runnable() {
+
+      @Override
+      public void run() {
+        foo.bar((Integer) null);
+      }
+
+    }, 8));
+  }
+
+  @Test
+  public void testMethodWithoutSamplingUsesClassSampling() {
+    assertEquals(2, rejections(new Runnable() {
+
+      @Override
+      public void run() {
+        foo.bar((Double) null);
+      }
+
+    }, 6));
+  }
+
+  @Test
+  public void testGlobalSampling() {
+    NullBlocker.setSampling(4);
+    final NotAnnotatedFoo foo = NullProof.of(NotAnnotatedFoo.class);
+    assertEquals(2, rejections(new Runnable() {
+
+      @Override
+      public void run() {
+        foo.bar(null);
+      }
+
+    }, 8));
+    NullBlocker.setSampling(1);
+    assertEquals(8, rejections(new Runnable() {
+
+      @Override
+      public void run() {
+        foo.bar(null);
+      }
+
+    }, 8));
+  }
+
+  @Test
+  public void testCountersArePerThread() throws Exception {
+    final AtomicInteger count = new AtomicInteger();
+    Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread(new Runnable() {
+
+        @Override
+        public void run() {
+          count.addAndGet(rejections(new Runnable() {
+
+            @Override
+            public void run() {
+              foo.bar((String) null);
+            }
+
+          }, 1));
+        }
+
+      });
+      threads[i].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertEquals(4, count.get());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidSampling() {
+    NullBlocker.setSampling(0);
+  }
+
+}
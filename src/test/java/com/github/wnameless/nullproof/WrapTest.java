@@ -0,0 +1,155 @@
+/**
+ *
+ * @author Wei-Ming Wu
+ *
+ *
+ * Copyright 2014 Wei-Ming Wu
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ *
+ */
+package com.github.wnameless.nullproof;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class WrapTest {
+
+  FooInterface target;
+  FooInterface foo;
+
+  @Before
+  public void setUp() {
+    target = new FooInterface() {
+
+      @Override
+      public String bar(String s) {
+        return "s" + s;
+      }
+
+      @Override
+      public String bar(Integer i) {
+        return "i" + i;
+      }
+
+      @Override
+      public int twice(int i) {
+        return i * 2;
+      }
+
+      @Override
+      public String echo(String s) {
+        return s;
+      }
+
+      @Override
+      public void fail(String s) throws IOException {
+        throw new IOException(s);
+      }
+
+    };
+    foo = NullProof.wrap(target, FooInterface.class);
+  }
+
+  @Test
+  public void testDelegation() {
+    assertEquals("sa", foo.bar("a"));
+    assertEquals("i1", foo.bar(1));
+    assertEquals(4, foo.twice(2));
+    assertNull(foo.echo(null));
+  }
+
+  @Test
+  public void testRejectNull() {
+    try {
+      foo.bar((String) null);
+      fail();
+    } catch (NullPointerException ex) {
+      assertTrue(ex.getMessage().startsWith(
+          "Parameter<String> is not nullable"));
+    }
+    try {
+      foo.bar((Integer) null);
+      fail();
+    } catch (NullPointerException ex) {
+      assertTrue(ex.getMessage().startsWith("No Integer!"));
+    }
+  }
+
+  @Test
+  public void testCheckedExceptionIsUnwrapped() {
+    try {
+      foo.fail("oops");
+      fail();
+    } catch (IOException ex) {
+      assertEquals("oops", ex.getMessage());
+    }
+  }
+
+  @Test
+  public void testObjectMethods() {
+    assertFalse(foo.equals(null));
+    foo.hashCode();
+    foo.toString();
+  }
+
+  @Test
+  public void testObjectMethodsAreDelegated() {
+    assertTrue(foo.equals(foo));
+    assertTrue(foo.equals(target));
+    assertTrue(foo.equals(NullProof.wrap(target, FooInterface.class)));
+    assertFalse(foo.equals(new Object()));
+    assertEquals(target.hashCode(), foo.hashCode());
+    assertEquals(target.toString(), foo.toString());
+  }
+
+  @Test
+  public void testObjectMethodsOfValues() {
+    List<String> list = NullProof.wrap(new ArrayList<String>(), List.class);
+    list.add("a");
+    assertEquals(Arrays.asList("a"), list);
+    assertTrue(list.equals(Arrays.asList("a")));
+    assertTrue(list.equals(NullProof.wrap(Arrays.asList("a"), List.class)));
+    assertEquals(Arrays.asList("a").hashCode(), list.hashCode());
+    assertEquals("[a]", list.toString());
+  }
+
+  @Test
+  public void testProxyClassIsCached() {
+    assertSame(foo.getClass(),
+        NullProof.wrap(foo, FooInterface.class).getClass());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWrapWithClass() {
+    NullProof.wrap(new Foo(), Foo.class);
+  }
+
+  @Test(expected = NullPointerException.class)
+  public void testWrapNull() {
+    NullProof.wrap(null, FooInterface.class);
+  }
+
+}